@@ -24,6 +24,126 @@ CREATE TABLE IF NOT EXISTS students (
     INDEX idx_is_verified (is_verified)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
+-- One row per student per date with that day's mark/verify outcome (also the attendance history).
+-- The primary key leads with the date so the table can be range-partitioned on attendance_date.
+CREATE TABLE IF NOT EXISTS attendance_day (
+    attendance_date DATE NOT NULL,
+    sl_no BIGINT NOT NULL,
+    marked_at DATETIME NULL,
+    verified_at DATETIME NULL,
+    mark_attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at DATETIME NULL,
+    
+    PRIMARY KEY (attendance_date, sl_no),
+    INDEX idx_attendance_day_student (sl_no, attendance_date)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Day's marking worklist shared by all nodes; claimed with SELECT ... FOR UPDATE SKIP LOCKED under a lease
+CREATE TABLE IF NOT EXISTS attendance_queue (
+    attendance_date DATE NOT NULL,
+    sl_no BIGINT NOT NULL,
+    slot INT NOT NULL,
+    available_at DATETIME NOT NULL,
+    lease_owner VARCHAR(100) NULL,
+    lease_until DATETIME NULL,
+    completed_at DATETIME NULL,
+    
+    PRIMARY KEY (attendance_date, sl_no),
+    INDEX idx_attendance_queue_claim (attendance_date, completed_at, available_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Checkpointed marking runs; an INTERRUPTED run is resumed by the next run on the same day
+CREATE TABLE IF NOT EXISTS attendance_runs (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    phase VARCHAR(20) NOT NULL,
+    attendance_date DATE NOT NULL,
+    node_id VARCHAR(100) NOT NULL,
+    state VARCHAR(20) NOT NULL,
+    submitted INT NOT NULL DEFAULT 0,
+    succeeded INT NOT NULL DEFAULT 0,
+    failed INT NOT NULL DEFAULT 0,
+    started_at DATETIME NOT NULL,
+    updated_at DATETIME NOT NULL,
+    finished_at DATETIME NULL,
+    
+    INDEX idx_attendance_runs_date_state (attendance_date, state)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Idempotency ledger: one ERP call per student, day and phase (MARK or VERIFY)
+CREATE TABLE IF NOT EXISTS attendance_ledger (
+    attendance_date DATE NOT NULL,
+    phase VARCHAR(10) NOT NULL,
+    sic VARCHAR(50) NOT NULL,
+    claimed_at DATETIME NOT NULL,
+    claimed_by VARCHAR(100) NOT NULL,
+    completed_at DATETIME NULL,
+    
+    PRIMARY KEY (attendance_date, phase, sic)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Lease locks so each scheduled job execution runs on one node only
+CREATE TABLE IF NOT EXISTS scheduler_locks (
+    name VARCHAR(64) NOT NULL PRIMARY KEY,
+    locked_until DATETIME NOT NULL,
+    locked_at DATETIME NOT NULL,
+    locked_by VARCHAR(100) NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Notification emails written with the change they report and drained by the outbox dispatcher.
+-- dedupe_key is (type, student, date) for attendance emails and NULL for emails that may repeat.
+-- coalesce_key marks a student's change notification; later changes are merged into it until it is sent.
+CREATE TABLE IF NOT EXISTS email_outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    dedupe_key VARCHAR(150) NULL UNIQUE,
+    recipient VARCHAR(255) NOT NULL,
+    subject VARCHAR(500) NOT NULL,
+    html_body TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at DATETIME NOT NULL,
+    lease_owner VARCHAR(100) NULL,
+    lease_until DATETIME NULL,
+    last_error VARCHAR(500) NULL,
+    created_at DATETIME NOT NULL,
+    sent_at DATETIME NULL,
+    broadcast_id BIGINT NULL,
+    coalesce_key VARCHAR(150) NULL,
+    coalesced_state TEXT NULL,
+    
+    INDEX idx_email_outbox_due (status, next_attempt_at),
+    INDEX idx_email_outbox_broadcast (broadcast_id, status),
+    INDEX idx_email_outbox_coalesce (coalesce_key, status)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Admin broadcasts; the body is stored once and shared by the job's outbox rows
+CREATE TABLE IF NOT EXISTS broadcast_jobs (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    subject VARCHAR(500) NOT NULL,
+    html_body TEXT NOT NULL,
+    node_id VARCHAR(100) NOT NULL,
+    state VARCHAR(20) NOT NULL DEFAULT 'QUEUEING',
+    total_recipients INT NOT NULL DEFAULT 0,
+    queued INT NOT NULL DEFAULT 0,
+    last_sl_no BIGINT NULL,
+    created_at DATETIME NOT NULL,
+    updated_at DATETIME NOT NULL,
+    queued_at DATETIME NULL,
+    
+    INDEX idx_broadcast_jobs_state (state, updated_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Pending attendance verifications (durable delay queue)
+CREATE TABLE IF NOT EXISTS pending_verifications (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    sic VARCHAR(50) NOT NULL UNIQUE,
+    due_at DATETIME NOT NULL,
+    lease_owner VARCHAR(100) NULL,
+    lease_until DATETIME NULL,
+    created_at DATETIME NOT NULL,
+    
+    INDEX idx_pending_verifications_due_at (due_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
 -- Sample queries for monitoring
 
 -- View all active students
@@ -31,16 +151,17 @@ SELECT * FROM students WHERE status = 'ACTIVE';
 
 -- View today's attendance status
 SELECT 
-    sic,
-    email,
-    attendance_count,
+    s.sic,
+    s.email,
+    s.attendance_count,
     CASE 
-        WHEN is_taken = TRUE AND is_verified = TRUE THEN 'Marked & Verified'
-        WHEN is_taken = TRUE AND is_verified = FALSE THEN 'Marked (Pending Verification)'
+        WHEN d.marked_at IS NOT NULL AND d.verified_at IS NOT NULL THEN 'Marked & Verified'
+        WHEN d.marked_at IS NOT NULL THEN 'Marked (Pending Verification)'
         ELSE 'Not Marked'
     END as today_status
-FROM students
-WHERE status = 'ACTIVE';
+FROM students s
+LEFT JOIN attendance_day d ON d.sl_no = s.sl_no AND d.attendance_date = CURDATE()
+WHERE s.status = 'ACTIVE';
 
 -- View attendance statistics
 SELECT 
@@ -51,13 +172,18 @@ SELECT
 FROM students
 GROUP BY status;
 
--- View students who need attention (not verified)
+-- View students who need attention (marked today but not verified)
 SELECT 
-    sic,
-    email,
-    attendance_count
-FROM students
-WHERE is_taken = TRUE AND is_verified = FALSE;
+    s.sic,
+    s.email,
+    s.attendance_count
+FROM students s
+JOIN attendance_day d ON d.sl_no = s.sl_no AND d.attendance_date = CURDATE()
+WHERE d.marked_at IS NOT NULL AND d.verified_at IS NULL;
+
+-- Attendance history for one student
+-- SELECT attendance_date, marked_at, verified_at FROM attendance_day
+-- WHERE sl_no = ? ORDER BY attendance_date DESC;
 
 -- View paused students
 SELECT 
@@ -68,8 +194,10 @@ SELECT
 FROM students
 WHERE status = 'PAUSED';
 
--- Reset daily flags (done automatically by the application)
--- UPDATE students SET is_taken = FALSE, is_verified = FALSE;
+-- Daily flags need no reset: students not marked today simply have no marked attendance_day row
+-- SELECT s.* FROM students s WHERE NOT EXISTS (
+--   SELECT 1 FROM attendance_day d WHERE d.sl_no = s.sl_no AND d.attendance_date = CURDATE()
+--     AND d.marked_at IS NOT NULL);
 
 -- Activate students with expired pause
 -- UPDATE students 
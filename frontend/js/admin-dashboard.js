@@ -402,12 +402,13 @@ document.getElementById('messageForm').addEventListener('submit', async (e) => {
         
         if (response.ok) {
             const result = await response.json();
-            showToast(
-                sendToAll 
-                    ? `Message sent to ${result.recipientCount} students!` 
-                    : 'Message sent successfully!', 
-                'success'
-            );
+            if (sendToAll) {
+                // Broadcasts run in the background; follow the job until every email is out
+                showToast(`Sending message to ${result.totalRecipients} students...`, 'success');
+                pollBroadcastJob(result.jobId);
+            } else {
+                showToast('Message sent successfully!', 'success');
+            }
             messageModal.classList.remove('active');
             
             // Reset form
@@ -430,6 +431,27 @@ document.getElementById('messageForm').addEventListener('submit', async (e) => {
     }
 });
 
+// Report broadcast progress until nothing is left to send
+async function pollBroadcastJob(jobId) {
+    try {
+        const response = await fetch(`${API_BASE_URL}/messages/jobs/${jobId}`);
+        if (!response.ok) {
+            return;
+        }
+        const job = await response.json();
+        if (job.remaining > 0) {
+            showToast(`Message sent to ${job.sent} of ${job.totalRecipients} students...`, 'success');
+            setTimeout(() => pollBroadcastJob(jobId), 3000);
+        } else if (job.failed > 0) {
+            showToast(`Message sent to ${job.sent} students, ${job.failed} failed`, 'error');
+        } else {
+            showToast(`Message sent to ${job.sent} students!`, 'success');
+        }
+    } catch (error) {
+        console.error('Error:', error);
+    }
+}
+
 // Close modal on outside click
 window.addEventListener('click', (e) => {
     if (e.target === editStudentModal) {
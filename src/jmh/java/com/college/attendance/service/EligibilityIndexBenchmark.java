@@ -0,0 +1,89 @@
+package com.college.attendance.service;
+
+import com.college.attendance.entity.Student;
+import com.college.attendance.entity.Student.StudentStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Worklist filtering on the in-memory eligibility index with a realistic mix
+ * of paused, marked, backing-off and exhausted students.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+public class EligibilityIndexBenchmark {
+
+    @Param({"1000", "100000"})
+    private int students;
+
+    private EligibilityIndex index;
+    private LocalDate today;
+    private LocalDateTime now;
+
+    @Setup
+    public void setUp() {
+        // The index loads from an empty database, then is filled through its update methods
+        JdbcTemplate emptyDatabase = new JdbcTemplate() {
+            @Override
+            public void query(String sql, RowCallbackHandler rch) {
+            }
+
+            @Override
+            public void query(String sql, RowCallbackHandler rch, Object... args) {
+            }
+        };
+        index = new EligibilityIndex(emptyDatabase);
+        Field maxAttempts = ReflectionUtils.findField(EligibilityIndex.class, "maxAttempts");
+        ReflectionUtils.makeAccessible(maxAttempts);
+        ReflectionUtils.setField(maxAttempts, index, 5);
+
+        today = LocalDate.now();
+        now = LocalDateTime.now();
+        index.worklist(today, now);
+
+        for (int i = 1; i <= students; i++) {
+            Student student = new Student();
+            student.setSlNo((long) i);
+            if (i % 10 == 0) {
+                student.setStatus(StudentStatus.PAUSED);
+                student.setPauseTill(i % 20 == 0 ? today : today.plusDays(5));
+            }
+            index.studentSaved(student);
+
+            if (i % 3 == 0) {
+                index.marked(student.getSlNo(), today);
+            } else if (i % 7 == 0) {
+                index.failedAttempt(student.getSlNo(), today, 2, now.plusMinutes(10));
+            } else if (i % 50 == 0) {
+                index.failedAttempt(student.getSlNo(), today, 5, null);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Long> worklist() {
+        return index.worklist(today, now);
+    }
+}
@@ -0,0 +1,127 @@
+package com.college.attendance.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * The string-concatenation email rendering that EmailTemplate replaced, kept as
+ * the baseline for EmailTemplateBenchmark.
+ */
+final class LegacyEmailTemplates {
+
+    private LegacyEmailTemplates() {
+    }
+
+    static String getDisclaimerHtml() {
+        return "<div style='background: rgba(239, 68, 68, 0.1); border: 2px solid rgba(239, 68, 68, 0.3); border-radius: 12px; padding: 20px; margin: 24px 0;'>" +
+               "  <div style='text-align: center; margin-bottom: 16px;'>" +
+               "    <div style='font-size: 32px; margin-bottom: 8px;'>⚠</div>" +
+               "    <h2 style='margin: 0; color: #ef4444; font-size: 18px; font-weight: 700; text-transform: uppercase; letter-spacing: 1px;'>IMPORTANT LEGAL NOTICE</h2>" +
+               "  </div>" +
+               "  <div style='background: rgba(0, 0, 0, 0.2); border-radius: 8px; padding: 16px;'>" +
+               "    <p style='margin: 0 0 12px; color: rgba(255, 255, 255, 0.95); font-size: 14px; line-height: 1.6;'><strong style='color: #fbbf24;'>This is an ACADEMIC PROJECT for educational purposes only.</strong></p>" +
+               "    <p style='margin: 0 0 12px; color: rgba(255, 255, 255, 0.9); font-size: 13px; line-height: 1.6;'>By using this system, you acknowledge and agree that:</p>" +
+               "    <ul style='margin: 0; padding-left: 20px; color: rgba(255, 255, 255, 0.85); font-size: 12px; line-height: 1.8;'>" +
+               "      <li>This is a <strong>STUDENT PROJECT</strong> for testing and evaluation only</li>" +
+               "      <li>You will <strong>NOT</strong> use this for actual daily attendance management</li>" +
+               "      <li>You are <strong>SOLELY RESPONSIBLE</strong> for any consequences</li>" +
+               "      <li>The developer is <strong>NOT LIABLE</strong> for any issues or problems</li>" +
+               "      <li>The developer has the <strong>RIGHT TO SHARE</strong> your data with authorities if any problems arise from college or government</li>" +
+               "      <li>YOU are the <strong>SOLE CASE HOLDER</strong> for any legal/disciplinary actions</li>" +
+               "      <li>You must <strong>INDEMNIFY AND HOLD HARMLESS</strong> the developer</li>" +
+               "      <li>These terms are <strong>BINDING</strong> upon registration</li>" +
+               "    </ul>" +
+               "    <p style='margin: 12px 0 0; color: rgba(255, 255, 255, 0.75); font-size: 11px; font-style: italic;'>For complete terms, visit the registration page.</p>" +
+               "  </div>" +
+               "</div>";
+    }
+
+    static String customMessage(String subject, String body) {
+        String content = 
+            "<p style='margin: 0 0 16px; color: rgba(255, 255, 255, 0.95); font-size: 16px; line-height: 1.6;'>" +
+            body.replace("\n", "<br>") + "</p>" +
+            getDisclaimerHtml();
+        
+        String details = 
+            "<div style='padding: 16px; background: rgba(99, 102, 241, 0.1); border-radius: 12px; border: 1px solid rgba(99, 102, 241, 0.3);'>" +
+            "  <div style='display: flex; align-items: center;'>" +
+            "    <span style='font-size: 24px; margin-right: 12px;'>●</span>" +
+            "    <div style='font-size: 14px; color: rgba(255, 255, 255, 0.75); font-style: italic;'>" +
+            "      This message was sent from the Hostel Attendance System Admin Panel" +
+            "    </div>" +
+            "  </div>" +
+            "</div>";
+        
+        String additionalMessage = "If you have any questions or concerns, please contact the hostel administration.";
+        
+        return buildEmailTemplate(subject, content, details, additionalMessage);
+    }
+
+    static String buildEmailTemplate(String subject, String content, String details, String additionalMessage) {
+        int currentYear = LocalDateTime.now().getYear();
+        
+        return "<!DOCTYPE html>" +
+            "<html lang='en'>" +
+            "<head>" +
+            "  <meta charset='UTF-8'>" +
+            "  <meta name='viewport' content='width=device-width, initial-scale=1.0'>" +
+            "  <title>" + subject + "</title>" +
+            "</head>" +
+            "<body style='margin: 0; padding: 0; font-family: Inter, -apple-system, BlinkMacSystemFont, Segoe UI, Roboto, sans-serif; background: linear-gradient(135deg, #0f0c29 0%, #302b63 50%, #24243e 100%); min-height: 100vh;'>" +
+            "  <table role='presentation' cellspacing='0' cellpadding='0' border='0' width='100%' style='background: linear-gradient(135deg, #0f0c29 0%, #302b63 50%, #24243e 100%); padding: 40px 20px;'>" +
+            "    <tr>" +
+            "      <td align='center'>" +
+            "        <table role='presentation' cellspacing='0' cellpadding='0' border='0' width='600' style='max-width: 600px; background: rgba(255, 255, 255, 0.05); backdrop-filter: blur(20px); border: 1px solid rgba(255, 255, 255, 0.1); border-radius: 24px; overflow: hidden; box-shadow: 0 8px 32px rgba(0, 0, 0, 0.5);'>" +
+            "          <tr>" +
+            "            <td style='background: linear-gradient(135deg, rgba(102, 126, 234, 0.2) 0%, rgba(118, 75, 162, 0.2) 100%); padding: 40px 40px 30px; text-align: center; border-bottom: 1px solid rgba(255, 255, 255, 0.1);'>" +
+            "              <div style='font-size: 64px; margin-bottom: 16px;'>•</div>" +
+            "              <h1 style='margin: 0 0 8px; font-size: 28px; font-weight: 800; color: #fff;'>Attendance Automation</h1>" +
+            "              <p style='margin: 0; color: rgba(255, 255, 255, 0.8); font-size: 14px; font-weight: 400;'>College Hostel Attendance System</p>" +
+            "            </td>" +
+            "          </tr>" +
+            "          <tr>" +
+            "            <td style='padding: 40px;'>" +
+            "              <p style='margin: 0 0 24px; color: rgba(255, 255, 255, 0.95); font-size: 16px; line-height: 1.6;'>Dear Student,</p>" +
+            "              <div style='margin-bottom: 32px;'>" + content + "</div>" +
+            "              <table role='presentation' cellspacing='0' cellpadding='0' border='0' width='100%' style='background: rgba(255, 255, 255, 0.03); border: 1px solid rgba(255, 255, 255, 0.1); border-radius: 16px; margin-bottom: 32px;'>" +
+            "                <tr><td style='padding: 24px;'>" + details + "</td></tr>" +
+            "              </table>" +
+            "              <p style='margin: 0 0 24px; color: rgba(255, 255, 255, 0.75); font-size: 15px; line-height: 1.6;'>" + additionalMessage + "</p>" +
+            "              <div style='margin-top: 40px; padding-top: 24px; border-top: 1px solid rgba(255, 255, 255, 0.1);'>" +
+            "                <p style='margin: 0 0 8px; color: rgba(255, 255, 255, 0.95); font-size: 15px; font-weight: 600;'>Best regards,</p>" +
+            "                <p style='margin: 0; color: rgba(255, 255, 255, 0.75); font-size: 15px;'>Hostel Attendance System</p>" +
+            "              </div>" +
+            "            </td>" +
+            "          </tr>" +
+            "          <tr>" +
+            "            <td style='background: rgba(0, 0, 0, 0.2); padding: 24px 40px; text-align: center; border-top: 1px solid rgba(255, 255, 255, 0.1);'>" +
+            "              <table role='presentation' cellspacing='0' cellpadding='0' border='0' width='100%' style='margin-bottom: 20px;'>" +
+            "                <tr>" +
+            "                  <td align='center'>" +
+            "                    <table role='presentation' cellspacing='0' cellpadding='0' border='0'>" +
+            "                      <tr>" +
+            "                        <td style='padding: 8px 12px; background: rgba(255, 255, 255, 0.05); border: 1px solid rgba(255, 255, 255, 0.1); border-radius: 50px; margin: 0 4px;'>" +
+            "                          <span style='color: rgba(255, 255, 255, 0.9); font-size: 12px;'>Auto Mark Daily</span>" +
+            "                        </td>" +
+            "                        <td style='padding: 8px 12px; background: rgba(255, 255, 255, 0.05); border: 1px solid rgba(255, 255, 255, 0.1); border-radius: 50px; margin: 0 4px;'>" +
+            "                          <span style='color: rgba(255, 255, 255, 0.9); font-size: 12px;'>Verified</span>" +
+            "                        </td>" +
+            "                        <td style='padding: 8px 12px; background: rgba(255, 255, 255, 0.05); border: 1px solid rgba(255, 255, 255, 0.1); border-radius: 50px; margin: 0 4px;'>" +
+            "                          <span style='color: rgba(255, 255, 255, 0.9); font-size: 12px;'>Secure</span>" +
+            "                        </td>" +
+            "                      </tr>" +
+            "                    </table>" +
+            "                  </td>" +
+            "                </tr>" +
+            "              </table>" +
+            "              <p style='margin: 0; color: rgba(255, 255, 255, 0.5); font-size: 12px;'>© " + currentYear + " College Attendance Automation. All rights reserved.</p>" +
+            "              <p style='margin: 12px 0 0; color: rgba(255, 255, 255, 0.4); font-size: 11px; line-height: 1.5;'>This is an automated message. Please do not reply to this email.</p>" +
+            "            </td>" +
+            "          </tr>" +
+            "        </table>" +
+            "      </td>" +
+            "    </tr>" +
+            "  </table>" +
+            "</body>" +
+            "</html>";
+    }
+}
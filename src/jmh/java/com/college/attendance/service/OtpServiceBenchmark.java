@@ -0,0 +1,66 @@
+package com.college.attendance.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OTP generation and the store/verify round trip with several threads hitting
+ * the shared otpStore and SecureRandom, as during a login rush.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+@Threads(8)
+public class OtpServiceBenchmark {
+
+    @Param({"1000"})
+    private int keys;
+
+    private OtpService otpService;
+
+    @Setup
+    public void setUp() {
+        otpService = new OtpService(null, null);
+        for (int i = 0; i < keys; i++) {
+            otpService.storeOtp(key(i), "000000");
+        }
+    }
+
+    @Benchmark
+    public String generateOtp() {
+        return otpService.generateOtp();
+    }
+
+    @Benchmark
+    public boolean storeAndVerify() {
+        String key = key(ThreadLocalRandom.current().nextInt(keys));
+        String otp = otpService.generateOtp();
+        otpService.storeOtp(key, otp);
+        return otpService.verifyOtp(key, otp);
+    }
+
+    @Benchmark
+    public boolean verifyWrongOtp() {
+        return otpService.verifyOtp(key(ThreadLocalRandom.current().nextInt(keys)), "999999");
+    }
+
+    private static String key(int i) {
+        return "SIC" + i;
+    }
+}
@@ -0,0 +1,135 @@
+package com.college.attendance.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The twice-daily flag reset as it used to run on the students table: the old
+ * load-everything-and-save-row-by-row pass against the single bulk UPDATE that
+ * replaced it. Daily state now lives in attendance_day keyed by date, so the
+ * current code has no reset at all; this records what each step removed.
+ * Needs a scratch PostgreSQL database (see the jdbcUrl, user and password
+ * params); it works on its own reset_bench_students table and drops it after.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+public class ResetDailyFlagsBenchmark {
+
+    private static final String TABLE = "reset_bench_students";
+
+    @Param({"10000", "100000"})
+    private int students;
+
+    @Param({"jdbc:postgresql://localhost:5432/attendance_bench"})
+    private String jdbcUrl;
+
+    @Param({"postgres"})
+    private String user;
+
+    @Param({"postgres"})
+    private String password;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private LocalDateTime startOfToday;
+
+    @Setup
+    public void setUp() {
+        dataSource = new SingleConnectionDataSource(jdbcUrl, user, password, true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        startOfToday = LocalDate.now().atStartOfDay();
+
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + TABLE);
+        jdbcTemplate.execute("CREATE TABLE " + TABLE + " (sl_no BIGINT PRIMARY KEY, sic VARCHAR(50) NOT NULL, " +
+                "is_taken BOOLEAN NOT NULL, is_verified BOOLEAN NOT NULL, taken_on TIMESTAMP NULL, " +
+                "mark_attempts INT NULL, next_attempt_at TIMESTAMP NULL)");
+        List<Object[]> rows = new ArrayList<>(students);
+        for (long i = 1; i <= students; i++) {
+            rows.add(new Object[]{i, "SIC" + i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO " + TABLE + " (sl_no, sic, is_taken, is_verified) " +
+                "VALUES (?, ?, false, false)", rows);
+        jdbcTemplate.execute("ANALYZE " + TABLE);
+    }
+
+    // Before each run: a third marked today, a third marked yesterday, a third clean
+    @Setup(Level.Iteration)
+    public void dirty() {
+        Timestamp today = Timestamp.valueOf(startOfToday.plusHours(20));
+        Timestamp yesterday = Timestamp.valueOf(startOfToday.minusHours(4));
+        jdbcTemplate.update("UPDATE " + TABLE + " SET is_taken = true, is_verified = true, taken_on = ?, " +
+                "mark_attempts = 1, next_attempt_at = NULL WHERE sl_no % 3 = 0", today);
+        jdbcTemplate.update("UPDATE " + TABLE + " SET is_taken = true, is_verified = (sl_no % 2 = 0), taken_on = ?, " +
+                "mark_attempts = 2, next_attempt_at = ? WHERE sl_no % 3 = 1", yesterday, yesterday);
+        jdbcTemplate.update("UPDATE " + TABLE + " SET is_taken = false, is_verified = false, taken_on = NULL, " +
+                "mark_attempts = NULL, next_attempt_at = NULL WHERE sl_no % 3 = 2");
+    }
+
+    @TearDown
+    public void tearDown() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + TABLE);
+        dataSource.destroy();
+    }
+
+    // The original resetDailyFlags: read every row, decide in Java, one UPDATE per changed row
+    @Benchmark
+    public int rowByRow() {
+        Integer reset = transactionTemplate.execute(status -> {
+            List<Long> changed = new ArrayList<>();
+            jdbcTemplate.query("SELECT sl_no, is_taken, is_verified, taken_on, mark_attempts, next_attempt_at FROM " +
+                    TABLE, rs -> {
+                Timestamp takenOn = rs.getTimestamp("taken_on");
+                boolean dirty = rs.getBoolean("is_taken") || rs.getBoolean("is_verified")
+                        || rs.getObject("mark_attempts") != null || rs.getObject("next_attempt_at") != null;
+                if (takenOn != null ? takenOn.toLocalDateTime().isBefore(startOfToday) : dirty) {
+                    changed.add(rs.getLong("sl_no"));
+                }
+            });
+            for (Long slNo : changed) {
+                jdbcTemplate.update("UPDATE " + TABLE + " SET is_taken = false, is_verified = false, " +
+                        "mark_attempts = NULL, next_attempt_at = NULL WHERE sl_no = ?", slNo);
+            }
+            return changed.size();
+        });
+        return reset != null ? reset : 0;
+    }
+
+    // The bulk UPDATE that replaced it, skipping rows that are already clean
+    @Benchmark
+    public int bulkUpdate() {
+        Integer reset = transactionTemplate.execute(status -> jdbcTemplate.update("UPDATE " + TABLE +
+                " SET is_taken = false, is_verified = false, mark_attempts = NULL, next_attempt_at = NULL " +
+                "WHERE (taken_on IS NULL OR taken_on < ?) AND " +
+                "(is_taken = true OR is_verified = true OR mark_attempts IS NOT NULL OR next_attempt_at IS NOT NULL)",
+                Timestamp.valueOf(startOfToday)));
+        return reset != null ? reset : 0;
+    }
+}
@@ -0,0 +1,68 @@
+package com.college.attendance.service;
+
+import com.college.attendance.dto.StudentResponse;
+import com.college.attendance.entity.Student;
+import com.college.attendance.entity.Student.StudentStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO mapping for the admin student list.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+public class StudentMappingBenchmark {
+
+    @Param({"1000", "100000"})
+    private int students;
+
+    private StudentService studentService;
+    private List<Student> roster;
+
+    @Setup
+    public void setUp() {
+        // mapToResponse touches none of the collaborators
+        studentService = new StudentService(null, null, null, null, null, null, null);
+        LocalDateTime now = LocalDateTime.now();
+        roster = new ArrayList<>(students);
+        for (int i = 0; i < students; i++) {
+            Student student = new Student();
+            student.setSlNo((long) i + 1);
+            student.setSic("SIC" + i);
+            student.setEmail("sic" + i + "@example.com");
+            student.setAddedOn(now.minusDays(30));
+            student.setAttendanceCount(i % 30);
+            student.setStatus(i % 10 == 0 ? StudentStatus.PAUSED : StudentStatus.ACTIVE);
+            student.setPauseTill(i % 10 == 0 ? LocalDate.now().plusDays(3) : null);
+            // Half were marked today, the rest on an earlier day
+            student.setIsTaken(true);
+            student.setIsVerified(i % 4 == 0);
+            student.setTakenOn(i % 2 == 0 ? now : now.minusDays(1));
+            roster.add(student);
+        }
+    }
+
+    @Benchmark
+    public List<StudentResponse> mapRoster() {
+        return roster.stream().map(studentService::mapToResponse).toList();
+    }
+}
@@ -1,17 +1,16 @@
 package com.college.attendance.controller;
 
+import com.college.attendance.dto.BroadcastJobResponse;
 import com.college.attendance.dto.MessageRequest;
 import com.college.attendance.dto.MessageResponse;
-import com.college.attendance.entity.Student;
-import com.college.attendance.repository.StudentRepository;
+import com.college.attendance.service.BroadcastService;
 import com.college.attendance.service.EmailService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/messages")
 @RequiredArgsConstructor
@@ -19,10 +18,10 @@ import java.util.List;
 public class MessagingController {
 
     private final EmailService emailService;
-    private final StudentRepository studentRepository;
+    private final BroadcastService broadcastService;
 
     @PostMapping("/send")
-    public ResponseEntity<MessageResponse> sendMessage(@RequestBody MessageRequest request) {
+    public ResponseEntity<?> sendMessage(@RequestBody MessageRequest request) {
         log.info("Sending message to: {}", request.getToEmail());
         
         try {
@@ -54,35 +53,19 @@ public class MessagingController {
         }
     }
 
+    /**
+     * Start a broadcast to every student and return its job at once. Progress is
+     * available from {@code GET /api/messages/jobs/{id}}.
+     */
     @PostMapping("/send-all")
-    public ResponseEntity<MessageResponse> sendMessageToAll(@RequestBody MessageRequest request) {
+    public ResponseEntity<?> sendMessageToAll(@RequestBody MessageRequest request) {
         log.info("Sending message to all students");
         
         try {
-            List<Student> students = studentRepository.findAll();
-            int successCount = 0;
-            
-            for (Student student : students) {
-                try {
-                    emailService.sendCustomMessage(
-                        student.getEmail(),
-                        request.getSubject(),
-                        request.getBody()
-                    );
-                    successCount++;
-                } catch (Exception e) {
-                    log.error("Failed to send message to: {}", student.getEmail(), e);
-                }
-            }
-            
-            log.info("Message sent to {} out of {} students", successCount, students.size());
-            return ResponseEntity.ok(new MessageResponse(
-                true, 
-                "Message sent to " + successCount + " students", 
-                successCount
-            ));
+            BroadcastJobResponse job = broadcastService.start(request.getSubject(), request.getBody());
+            return ResponseEntity.accepted().body(job);
         } catch (Exception e) {
-            log.error("Failed to send messages to all students", e);
+            log.error("Failed to start broadcast to all students", e);
             return ResponseEntity.badRequest().body(new MessageResponse(
                 false, 
                 "Failed to send messages: " + e.getMessage(), 
@@ -91,6 +74,16 @@ public class MessagingController {
         }
     }
 
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<BroadcastJobResponse> getBroadcastJob(@PathVariable Long id) {
+        try {
+            BroadcastJobResponse response = broadcastService.status(id);
+            return ResponseEntity.ok(response);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+        }
+    }
+
     @GetMapping("/test")
     public ResponseEntity<String> test() {
         return ResponseEntity.ok("Messaging controller is working!");
@@ -0,0 +1,18 @@
+package com.college.attendance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BroadcastJobResponse {
+    
+    private Long jobId;
+    private String state;
+    private Integer totalRecipients;
+    private Long sent;
+    private Long failed;
+    private Long remaining;
+}
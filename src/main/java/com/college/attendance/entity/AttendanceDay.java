@@ -0,0 +1,62 @@
+package com.college.attendance.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One student's attendance outcome for one date. Rows are never reset, so the
+ * table doubles as attendance history. The primary key leads with the date so
+ * the table can be range-partitioned by {@code attendance_date}.
+ */
+@Entity
+@Table(name = "attendance_day", indexes = {
+        @Index(name = "idx_attendance_day_student", columnList = "sl_no, attendance_date")
+})
+@IdClass(AttendanceDay.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceDay {
+
+    @Id
+    @Column(name = "attendance_date", nullable = false)
+    private LocalDate attendanceDate;
+
+    @Id
+    @Column(name = "sl_no", nullable = false)
+    private Long slNo;
+
+    @Column(name = "marked_at")
+    private LocalDateTime markedAt;
+
+    @Column(name = "verified_at")
+    private LocalDateTime verifiedAt;
+
+    // Retry state for the day's marking attempts
+    @Column(name = "mark_attempts", nullable = false)
+    private Integer markAttempts = 0;
+
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    public AttendanceDay(LocalDate attendanceDate, Long slNo) {
+        this.attendanceDate = attendanceDate;
+        this.slNo = slNo;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private LocalDate attendanceDate;
+        private Long slNo;
+    }
+}
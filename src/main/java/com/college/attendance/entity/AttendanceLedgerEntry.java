@@ -0,0 +1,61 @@
+package com.college.attendance.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Idempotency key for one ERP call per student, day and phase. The primary key
+ * makes the claim a unique-constraint insert, so only one node or tick can hold it.
+ */
+@Entity
+@Table(name = "attendance_ledger")
+@IdClass(AttendanceLedgerEntry.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceLedgerEntry {
+
+    @Id
+    @Column(name = "attendance_date", nullable = false)
+    private LocalDate attendanceDate;
+
+    @Id
+    @Column(name = "phase", nullable = false, length = 10)
+    @Enumerated(EnumType.STRING)
+    private Phase phase;
+
+    @Id
+    @Column(name = "sic", nullable = false, length = 50)
+    private String sic;
+
+    @Column(name = "claimed_at", nullable = false)
+    private LocalDateTime claimedAt;
+
+    @Column(name = "claimed_by", nullable = false, length = 100)
+    private String claimedBy;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    public enum Phase {
+        MARK,
+        VERIFY
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private LocalDate attendanceDate;
+        private Phase phase;
+        private String sic;
+    }
+}
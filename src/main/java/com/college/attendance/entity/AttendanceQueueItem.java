@@ -0,0 +1,59 @@
+package com.college.attendance.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One student on one day's marking worklist. Nodes claim rows with
+ * {@code FOR UPDATE SKIP LOCKED} and hold them under a lease until the outcome
+ * is written, so a crashed node's claims become claimable again once the lease expires.
+ */
+@Entity
+@Table(name = "attendance_queue", indexes = {
+        @Index(name = "idx_attendance_queue_claim", columnList = "attendance_date, completed_at, available_at")
+})
+@IdClass(AttendanceQueueItem.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceQueueItem {
+
+    @Id
+    @Column(name = "attendance_date", nullable = false)
+    private LocalDate attendanceDate;
+
+    @Id
+    @Column(name = "sl_no", nullable = false)
+    private Long slNo;
+
+    @Column(name = "slot", nullable = false)
+    private Integer slot;
+
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt;
+
+    @Column(name = "lease_owner", length = 100)
+    private String leaseOwner;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private LocalDate attendanceDate;
+        private Long slNo;
+    }
+}
@@ -0,0 +1,65 @@
+package com.college.attendance.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Progress record of one marking run, checkpointed after every claimed batch so
+ * an interrupted run can be resumed after a restart.
+ */
+@Entity
+@Table(name = "attendance_runs", indexes = {
+        @Index(name = "idx_attendance_runs_date_state", columnList = "attendance_date, state")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceRun {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "phase", nullable = false, length = 20)
+    private String phase;
+
+    @Column(name = "attendance_date", nullable = false)
+    private LocalDate attendanceDate;
+
+    @Column(name = "node_id", nullable = false, length = 100)
+    private String nodeId;
+
+    @Column(name = "state", nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    private RunState state = RunState.RUNNING;
+
+    @Column(name = "submitted", nullable = false)
+    private Integer submitted = 0;
+
+    @Column(name = "succeeded", nullable = false)
+    private Integer succeeded = 0;
+
+    @Column(name = "failed", nullable = false)
+    private Integer failed = 0;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    public enum RunState {
+        RUNNING,
+        COMPLETED,
+        INTERRUPTED
+    }
+}
@@ -0,0 +1,67 @@
+package com.college.attendance.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * An admin message to every student. The body is rendered once and stored here;
+ * the job walks the roster by sl_no and queues one outbox row per student that
+ * refers back to this body. Progress is checkpointed after every page so a job
+ * interrupted by a restart is picked up again from where it stopped.
+ */
+@Entity
+@Table(name = "broadcast_jobs", indexes = {
+        @Index(name = "idx_broadcast_jobs_state", columnList = "state, updated_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BroadcastJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "subject", nullable = false, length = 500)
+    private String subject;
+
+    @Column(name = "html_body", nullable = false, columnDefinition = "TEXT")
+    private String htmlBody;
+
+    @Column(name = "node_id", nullable = false, length = 100)
+    private String nodeId;
+
+    @Column(name = "state", nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    private JobState state = JobState.QUEUEING;
+
+    // Students on the roster when the job started; replaced by the final count once queued
+    @Column(name = "total_recipients", nullable = false)
+    private Integer totalRecipients = 0;
+
+    @Column(name = "queued", nullable = false)
+    private Integer queued = 0;
+
+    // Highest sl_no queued so far
+    @Column(name = "last_sl_no")
+    private Long lastSlNo;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(name = "queued_at")
+    private LocalDateTime queuedAt;
+
+    public enum JobState {
+        QUEUEING,
+        QUEUED
+    }
+}
@@ -0,0 +1,88 @@
+package com.college.attendance.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * An email waiting to be sent, written in the same transaction as the change it
+ * reports. The dispatcher claims pending rows under a lease, sends them and
+ * marks them SENT, or reschedules them with backoff until attempts run out.
+ * The optional dedupe key (student, type, date) makes a second insert of the
+ * same notification a no-op. Change notifications carry a coalesce key
+ * instead: later changes for the student are merged into the unsent row, whose
+ * coalesced state keeps the changes so far. Rows of a broadcast leave
+ * html_body empty and are sent with the body stored once on their
+ * {@link BroadcastJob}.
+ */
+@Entity
+@Table(name = "email_outbox", indexes = {
+        @Index(name = "idx_email_outbox_due", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_email_outbox_broadcast", columnList = "broadcast_id, status"),
+        @Index(name = "idx_email_outbox_coalesce", columnList = "coalesce_key, status")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailOutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "dedupe_key", unique = true, length = 150)
+    private String dedupeKey;
+
+    @Column(name = "recipient", nullable = false)
+    private String recipient;
+
+    @Column(name = "subject", nullable = false, length = 500)
+    private String subject;
+
+    @Column(name = "html_body", nullable = false, columnDefinition = "TEXT")
+    private String htmlBody;
+
+    @Column(name = "status", nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    private OutboxStatus status = OutboxStatus.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "lease_owner", length = 100)
+    private String leaseOwner;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    @Column(name = "broadcast_id")
+    private Long broadcastId;
+
+    @Column(name = "coalesce_key", length = 150)
+    private String coalesceKey;
+
+    @Column(name = "coalesced_state", columnDefinition = "TEXT")
+    private String coalescedState;
+
+    public enum OutboxStatus {
+        PENDING,
+        SENT,
+        FAILED
+    }
+}
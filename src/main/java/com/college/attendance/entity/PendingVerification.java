@@ -0,0 +1,46 @@
+package com.college.attendance.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "pending_verifications", indexes = {
+        @Index(name = "idx_pending_verifications_due_at", columnList = "due_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PendingVerification {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "sic", nullable = false, unique = true, length = 50)
+    private String sic;
+
+    @Column(name = "due_at", nullable = false)
+    private LocalDateTime dueAt;
+
+    // Node draining this verification, until the lease expires
+    @Column(name = "lease_owner", length = 100)
+    private String leaseOwner;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+}
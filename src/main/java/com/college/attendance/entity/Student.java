@@ -32,6 +32,8 @@ public class Student {
     @Column(name = "attendance_count", nullable = false)
     private Integer attendanceCount = 0;
 
+    // is_taken, is_verified and taken_on mirror the latest attendance_day row for display;
+    // they only describe today when taken_on falls on today
     @Column(name = "is_taken", nullable = false)
     private Boolean isTaken = false;
 
@@ -67,6 +69,12 @@ public class Student {
         }
     }
 
+    // Due for attendance on the given day: active, or paused with the pause over
+    public boolean isEligibleOn(LocalDate date) {
+        return status == StudentStatus.ACTIVE
+                || (status == StudentStatus.PAUSED && pauseTill != null && !pauseTill.isAfter(date));
+    }
+
     public enum StudentStatus {
         ACTIVE,
         PAUSED,
@@ -0,0 +1,19 @@
+package com.college.attendance.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Published when paused students are reactivated because their pause date has passed.
+ * Carries only SICs; PauseExpiryListener loads the students once to notify them
+ * and to update the eligibility index.
+ */
+@Getter
+@RequiredArgsConstructor
+public class PausesExpiredEvent {
+    private final LocalDate date;
+    private final List<String> sics;
+}
@@ -0,0 +1,25 @@
+package com.college.attendance.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Published once per admin edit with every notifiable change it made. The email
+ * is the student's address after the edit, which is where the notice goes.
+ */
+@Getter
+@RequiredArgsConstructor
+public class StudentChangedEvent {
+    private final String sic;
+    private final String email;
+    private final List<Change> changes;
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Change {
+        private final String type;
+        private final String details;
+    }
+}
@@ -0,0 +1,15 @@
+package com.college.attendance.repository;
+
+import com.college.attendance.entity.AttendanceDay;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AttendanceDayRepository extends JpaRepository<AttendanceDay, AttendanceDay.Key> {
+
+    @Modifying
+    @Query("DELETE FROM AttendanceDay d WHERE d.slNo = :slNo")
+    int deleteBySlNo(Long slNo);
+}
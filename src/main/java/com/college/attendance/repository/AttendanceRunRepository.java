@@ -0,0 +1,29 @@
+package com.college.attendance.repository;
+
+import com.college.attendance.entity.AttendanceRun;
+import com.college.attendance.entity.AttendanceRun.RunState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface AttendanceRunRepository extends JpaRepository<AttendanceRun, Long> {
+
+    // Interrupted runs, plus running ones whose node stopped checkpointing (crashed)
+    @Query("SELECT r FROM AttendanceRun r WHERE r.attendanceDate = :date AND r.phase = :phase AND " +
+           "(r.state = 'INTERRUPTED' OR (r.state = 'RUNNING' AND r.updatedAt < :staleBefore)) " +
+           "ORDER BY r.startedAt DESC")
+    List<AttendanceRun> findResumable(LocalDate date, String phase, LocalDateTime staleBefore);
+
+    // Take over a run only if nobody else resumed it since it was read
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE AttendanceRun r SET r.state = :running, r.nodeId = :nodeId, r.updatedAt = :now " +
+           "WHERE r.id = :id AND r.state = :state AND r.updatedAt = :updatedAt")
+    int takeOver(Long id, RunState state, LocalDateTime updatedAt, RunState running, String nodeId,
+                 LocalDateTime now);
+}
@@ -0,0 +1,38 @@
+package com.college.attendance.repository;
+
+import com.college.attendance.entity.BroadcastJob;
+import com.college.attendance.entity.BroadcastJob.JobState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface BroadcastJobRepository extends JpaRepository<BroadcastJob, Long> {
+
+    // Jobs still queueing whose node stopped checkpointing (crashed or shut down)
+    @Query("SELECT j FROM BroadcastJob j WHERE j.state = 'QUEUEING' AND j.updatedAt < :staleBefore ORDER BY j.id")
+    List<BroadcastJob> findStalled(LocalDateTime staleBefore);
+
+    // Take over a job only if nobody else resumed it since it was read
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE BroadcastJob j SET j.nodeId = :nodeId, j.updatedAt = :now " +
+           "WHERE j.id = :id AND j.state = :state AND j.updatedAt = :updatedAt")
+    int takeOver(Long id, JobState state, LocalDateTime updatedAt, String nodeId, LocalDateTime now);
+
+    // Checkpoint a page only if this node still owns the job and nobody moved it past fromSlNo
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE BroadcastJob j SET j.lastSlNo = :toSlNo, j.queued = j.queued + :queued, " +
+           "j.state = :state, j.updatedAt = :now " +
+           "WHERE j.id = :id AND j.nodeId = :nodeId AND j.state = 'QUEUEING' " +
+           "AND COALESCE(j.lastSlNo, 0) = :fromSlNo")
+    int checkpoint(Long id, String nodeId, long fromSlNo, long toSlNo, int queued, JobState state,
+                   LocalDateTime now);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE BroadcastJob j SET j.totalRecipients = j.queued, j.queuedAt = :now WHERE j.id = :id")
+    int markQueued(Long id, LocalDateTime now);
+}
@@ -0,0 +1,13 @@
+package com.college.attendance.repository;
+
+import com.college.attendance.entity.PendingVerification;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface PendingVerificationRepository extends JpaRepository<PendingVerification, Long> {
+
+    Optional<PendingVerification> findFirstByOrderByDueAtAsc();
+}
@@ -2,11 +2,16 @@ package com.college.attendance.repository;
 
 import com.college.attendance.entity.Student;
 import com.college.attendance.entity.Student.StudentStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,26 +22,23 @@ public interface StudentRepository extends JpaRepository<Student, Long> {
 
     Optional<Student> findByEmail(String email);
 
+    List<Student> findBySicIn(Collection<String> sics);
+
     boolean existsBySic(String sic);
 
     boolean existsByEmail(String email);
 
-    // Find students eligible for attendance (ACTIVE or PAUSED with expired pause date)
-    @Query("SELECT s FROM Student s WHERE s.status = 'ACTIVE' OR " +
-           "(s.status = 'PAUSED' AND s.pauseTill <= :today)")
-    List<Student> findEligibleStudents(LocalDate today);
-
-    // Find students who haven't taken attendance today
-    @Query("SELECT s FROM Student s WHERE s.isTaken = false AND " +
-           "(s.status = 'ACTIVE' OR (s.status = 'PAUSED' AND s.pauseTill <= :today))")
-    List<Student> findStudentsForAttendance(LocalDate today);
+    // Keyset page of (sl_no, email) pairs for broadcasts, without hydrating entities
+    @Query("SELECT s.slNo, s.email FROM Student s WHERE s.slNo > :lastSlNo ORDER BY s.slNo")
+    List<Object[]> findEmailsAfter(Long lastSlNo, Pageable pageable);
 
-    // Find students who need verification
-    @Query("SELECT s FROM Student s WHERE s.isTaken = true AND s.isVerified = false AND " +
-           "(s.status = 'ACTIVE' OR (s.status = 'PAUSED' AND s.pauseTill <= :today))")
-    List<Student> findStudentsForVerification(LocalDate today);
+    // Lock and return the SICs of students with expired pause, without hydrating entities
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s.sic FROM Student s WHERE s.status = 'PAUSED' AND s.pauseTill <= :today")
+    List<String> lockSicsWithExpiredPause(LocalDate today);
 
-    // Find students with expired pause
-    @Query("SELECT s FROM Student s WHERE s.status = 'PAUSED' AND s.pauseTill <= :today")
-    List<Student> findStudentsWithExpiredPause(LocalDate today);
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Student s SET s.status = 'ACTIVE', s.pauseTill = NULL " +
+           "WHERE s.status = 'PAUSED' AND s.pauseTill <= :today")
+    int activateExpiredPauses(LocalDate today);
 }
@@ -0,0 +1,163 @@
+package com.college.attendance.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AIMD concurrency limit for calls to a single downstream.
+ * The limit grows by about one per window of fast, healthy calls and is cut
+ * multiplicatively when a call fails or is slower than the latency threshold.
+ * Callers waiting for a permit are queued in arrival order without holding a
+ * thread, and are handed permits as calls finish.
+ */
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double BACKOFF_RATIO = 0.7;
+    private static final long DECREASE_COOLDOWN_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+
+    private double limit;
+    private int inFlight;
+    private long lastDecreaseNanos = System.nanoTime() - DECREASE_COOLDOWN_NANOS;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long latencyThresholdMillis) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMillis);
+    }
+
+    /**
+     * Request a permit. The future completes when one is granted, at once if one is
+     * free, or exceptionally with a {@link java.util.concurrent.TimeoutException}
+     * if none became free within the timeout. It is completed outside the lock, on
+     * the calling thread, the thread returning a permit, or the timeout thread.
+     */
+    public CompletableFuture<Void> acquire(long timeout, TimeUnit unit) {
+        CompletableFuture<Void> waiter;
+        lock.lock();
+        try {
+            // Queued callers go first, so a steady stream of new calls cannot starve them
+            if (waiters.isEmpty() && inFlight < (int) limit) {
+                inFlight++;
+                return CompletableFuture.completedFuture(null);
+            }
+            waiter = new CompletableFuture<>();
+            waiters.add(waiter);
+        } finally {
+            lock.unlock();
+        }
+        waiter.orTimeout(timeout, unit).whenComplete((permit, failure) -> {
+            if (failure != null) {
+                forget(waiter);
+            }
+        });
+        return waiter;
+    }
+
+    /**
+     * Return a permit and feed the call's outcome into the limit.
+     */
+    public void release(long latencyNanos, boolean healthy) {
+        List<CompletableFuture<Void>> granted;
+        lock.lock();
+        try {
+            boolean saturated = inFlight >= (int) limit;
+            inFlight--;
+
+            long now = System.nanoTime();
+            if (!healthy || latencyNanos > latencyThresholdNanos) {
+                if (now - lastDecreaseNanos >= DECREASE_COOLDOWN_NANOS && limit > minLimit) {
+                    limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+                    lastDecreaseNanos = now;
+                    log.warn("ERP concurrency limit decreased to {}", (int) limit);
+                }
+            } else if (saturated) {
+                // Only grow while the current limit is actually being used
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+            granted = grant();
+        } finally {
+            lock.unlock();
+        }
+        handOver(granted);
+    }
+
+    /**
+     * Return a permit that was never used for a call.
+     */
+    public void releaseUnused() {
+        List<CompletableFuture<Void>> granted;
+        lock.lock();
+        try {
+            inFlight--;
+            granted = grant();
+        } finally {
+            lock.unlock();
+        }
+        handOver(granted);
+    }
+
+    // Take permits for as many queued callers as the limit allows; must hold the lock
+    private List<CompletableFuture<Void>> grant() {
+        List<CompletableFuture<Void>> granted = new ArrayList<>();
+        while (inFlight < (int) limit && !waiters.isEmpty()) {
+            CompletableFuture<Void> waiter = waiters.poll();
+            if (!waiter.isDone()) {
+                inFlight++;
+                granted.add(waiter);
+            }
+        }
+        return granted;
+    }
+
+    // Completed outside the lock, since callers chain their call onto the permit
+    private void handOver(List<CompletableFuture<Void>> granted) {
+        for (CompletableFuture<Void> waiter : granted) {
+            if (!waiter.complete(null)) {
+                releaseUnused(); // Timed out in the meantime
+            }
+        }
+    }
+
+    private void forget(CompletableFuture<Void> waiter) {
+        lock.lock();
+        try {
+            waiters.remove(waiter);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
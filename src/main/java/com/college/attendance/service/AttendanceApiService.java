@@ -1,14 +1,27 @@
 package com.college.attendance.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
+import okhttp3.ResponseBody;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
 
 @Service
@@ -16,44 +29,213 @@ import java.util.concurrent.TimeUnit;
 @Slf4j
 public class AttendanceApiService {
 
+    private final MeterRegistry meterRegistry;
+
     @Value("${app.attendance.url}")
     private String attendanceUrl;
 
-    private final OkHttpClient httpClient = new OkHttpClient.Builder()
-            .connectTimeout(30, TimeUnit.SECONDS)
-            .readTimeout(30, TimeUnit.SECONDS)
-            .writeTimeout(30, TimeUnit.SECONDS)
-            .build();
+    @Value("${app.attendance.http.max-requests:64}")
+    private int maxRequests;
+
+    @Value("${app.attendance.http.max-requests-per-host:16}")
+    private int maxRequestsPerHost;
+
+    @Value("${app.attendance.http.max-idle-connections:16}")
+    private int maxIdleConnections;
+
+    @Value("${app.attendance.http.keep-alive-seconds:300}")
+    private long keepAliveSeconds;
+
+    @Value("${app.attendance.erp.limiter.initial-limit:8}")
+    private int initialLimit;
+
+    @Value("${app.attendance.erp.limiter.min-limit:1}")
+    private int minLimit;
+
+    @Value("${app.attendance.erp.limiter.max-limit:16}")
+    private int maxLimit;
+
+    @Value("${app.attendance.erp.limiter.latency-threshold-ms:5000}")
+    private long latencyThresholdMillis;
+
+    @Value("${app.attendance.erp.limiter.acquire-timeout-ms:30000}")
+    private long acquireTimeoutMillis;
+
+    @Value("${app.attendance.erp.breaker.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${app.attendance.erp.breaker.open-seconds:30}")
+    private long openSeconds;
+
+    @Value("${app.attendance.erp.breaker.max-open-seconds:300}")
+    private long maxOpenSeconds;
 
+    private OkHttpClient httpClient;
+    private AdaptiveConcurrencyLimiter limiter;
+    private CircuitBreaker circuitBreaker;
+    private Counter rejectedCalls;
+    private Timer callTimer;
+
+    // One shared dispatcher and connection pool so TLS sessions to the ERP host are reused
+    @PostConstruct
+    public void init() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(maxRequests);
+        dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+
+        httpClient = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveSeconds, TimeUnit.SECONDS))
+                .connectTimeout(30, TimeUnit.SECONDS)
+                .readTimeout(30, TimeUnit.SECONDS)
+                .writeTimeout(30, TimeUnit.SECONDS)
+                .build();
+
+        limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, latencyThresholdMillis);
+        circuitBreaker = new CircuitBreaker("erp", failureThreshold, openSeconds, maxOpenSeconds);
+
+        Gauge.builder("attendance.erp.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive concurrency limit for ERP calls")
+                .register(meterRegistry);
+        Gauge.builder("attendance.erp.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("ERP calls currently in flight")
+                .register(meterRegistry);
+        Gauge.builder("attendance.erp.breaker.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .description("ERP circuit breaker state (0=closed, 1=half-open, 2=open)")
+                .register(meterRegistry);
+        rejectedCalls = Counter.builder("attendance.erp.rejected")
+                .description("ERP calls rejected by the circuit breaker or concurrency limit")
+                .register(meterRegistry);
+        callTimer = Timer.builder("attendance.erp.latency")
+                .description("ERP call latency")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        httpClient.dispatcher().executorService().shutdown();
+        httpClient.connectionPool().evictAll();
+    }
+
+    /**
+     * @throws ErpUnavailableException if the ERP is currently considered unhealthy
+     */
     public boolean markAttendance(String sic) {
+        return await(markAttendanceAsync(sic));
+    }
+
+    /**
+     * Mark attendance without blocking the caller, neither on a concurrency permit
+     * nor on the HTTP call; the call is sent once a permit is granted. The future
+     * completes with {@code false} when the ERP rejects the call, or exceptionally
+     * with {@link ErpUnavailableException} when the circuit breaker is open or no
+     * permit frees up within the acquire timeout.
+     */
+    public CompletableFuture<Boolean> markAttendanceAsync(String sic) {
+        if (!circuitBreaker.tryAcquire()) {
+            rejectedCalls.increment();
+            return CompletableFuture.failedFuture(new ErpUnavailableException("ERP circuit breaker is open"));
+        }
+
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        limiter.acquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS).whenComplete((permit, failure) -> {
+            if (failure != null) {
+                circuitBreaker.releaseUnused();
+                rejectedCalls.increment();
+                result.completeExceptionally(new ErpUnavailableException("ERP concurrency limit saturated"));
+            } else {
+                send(sic, result);
+            }
+        });
+        return result;
+    }
+
+    private void send(String sic, CompletableFuture<Boolean> result) {
         String url = attendanceUrl + sic;
         log.info("Marking attendance for SIC: {} at URL: {}", sic, url);
+        long startNanos = System.nanoTime();
 
         Request request = new Request.Builder()
                 .url(url)
                 .get()
                 .build();
 
-        try (Response response = httpClient.newCall(request).execute()) {
-            boolean success = response.isSuccessful();
-            
-            if (success) {
-                log.info("Attendance marked successfully for SIC: {}", sic);
-                String responseBody = response.body() != null ? response.body().string() : "";
-                log.debug("Response: {}", responseBody);
-            } else {
-                log.error("Failed to mark attendance for SIC: {}. Status code: {}", sic, response.code());
+        httpClient.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                log.error("Error marking attendance for SIC: {}", sic, e);
+                complete(result, false, false, startNanos);
             }
-            
-            return success;
-        } catch (IOException e) {
-            log.error("Error marking attendance for SIC: {}", sic, e);
-            return false;
-        }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                // Closing an unread body lets OkHttp discard it and keep the connection pooled
+                try (ResponseBody body = response.body()) {
+                    boolean success = response.isSuccessful();
+
+                    if (success) {
+                        log.info("Attendance marked successfully for SIC: {}", sic);
+                        if (log.isDebugEnabled()) {
+                            log.debug("Response: {}", body != null ? body.string() : "");
+                        }
+                    } else {
+                        log.error("Failed to mark attendance for SIC: {}. Status code: {}", sic, response.code());
+                    }
+
+                    // Client errors (e.g. unknown SIC) do not count against ERP health
+                    complete(result, success, response.code() < 500, startNanos);
+                } catch (IOException e) {
+                    log.error("Error marking attendance for SIC: {}", sic, e);
+                    complete(result, false, false, startNanos);
+                }
+            }
+        });
     }
 
+    /**
+     * @throws ErpUnavailableException if the ERP is currently considered unhealthy
+     */
     public boolean verifyAttendance(String sic) {
+        return await(verifyAttendanceAsync(sic));
+    }
+
+    public CompletableFuture<Boolean> verifyAttendanceAsync(String sic) {
         log.info("Verifying attendance for SIC: {}", sic);
-        return markAttendance(sic); // Same API call for verification
+        return markAttendanceAsync(sic); // Same API call for verification
+    }
+
+    private void complete(CompletableFuture<Boolean> result, boolean success, boolean healthy, long startNanos) {
+        long latencyNanos = System.nanoTime() - startNanos;
+        limiter.release(latencyNanos, healthy);
+        if (healthy) {
+            circuitBreaker.onSuccess();
+        } else {
+            circuitBreaker.onFailure();
+        }
+        callTimer.record(latencyNanos, TimeUnit.NANOSECONDS);
+        result.complete(success);
+    }
+
+    private static boolean await(CompletableFuture<Boolean> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof ErpUnavailableException unavailable) {
+                throw unavailable;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Thrown when a call is not attempted because the ERP is considered unhealthy.
+     */
+    public static class ErpUnavailableException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public ErpUnavailableException(String message) {
+            super(message);
+        }
     }
 }
@@ -0,0 +1,187 @@
+package com.college.attendance.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs per-student attendance work on a bounded worker pool.
+ * The pool size caps the number of ERP calls in flight across all runs.
+ */
+@Service
+@Slf4j
+public class AttendanceMarkingEngine {
+
+    @Value("${app.attendance.max-concurrency:8}")
+    private int maxConcurrency;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(maxConcurrency, runnable -> {
+            Thread thread = new Thread(runnable, "attendance-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("Attendance marking engine started with max concurrency {}", maxConcurrency);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Start a new run. Work is submitted per student and the run blocks the
+     * submitter once {@code maxConcurrency} tasks of this run are in flight.
+     */
+    public Run start(String phase) {
+        return new Run(phase, 0);
+    }
+
+    /**
+     * Start a run that submits at most one task every {@code pacingNanos}.
+     */
+    public Run start(String phase, long pacingNanos) {
+        return new Run(phase, pacingNanos);
+    }
+
+    public class Run {
+
+        private final String phase;
+        private final long pacingNanos;
+        private final Semaphore inFlight = new Semaphore(maxConcurrency);
+        private final AtomicInteger submitted = new AtomicInteger();
+        private final AtomicInteger succeeded = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final long startNanos = System.nanoTime();
+
+        private Run(String phase, long pacingNanos) {
+            this.phase = phase;
+            this.pacingNanos = pacingNanos;
+        }
+
+        /**
+         * Submit one student's work. The task returns {@code true} on success.
+         * Returns {@code false} if the submitting thread was interrupted.
+         */
+        public boolean submit(String sic, Callable<Boolean> task) {
+            try {
+                if (pacingNanos > 0) {
+                    long waitNanos = startNanos + submitted.get() * pacingNanos - System.nanoTime();
+                    if (waitNanos > 0) {
+                        TimeUnit.NANOSECONDS.sleep(waitNanos);
+                    }
+                }
+                inFlight.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Interrupted while submitting {} work for SIC: {}", phase, sic);
+                return false;
+            }
+
+            submitted.incrementAndGet();
+            try {
+                executor.execute(() -> {
+                    try {
+                        if (Boolean.TRUE.equals(task.call())) {
+                            succeeded.incrementAndGet();
+                        } else {
+                            failed.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        failed.incrementAndGet();
+                        log.error("Error processing {} for SIC: {}", phase, sic, e);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                inFlight.release();
+                failed.incrementAndGet();
+                log.error("Worker pool rejected {} work for SIC: {}", phase, sic);
+            }
+            return true;
+        }
+
+        /**
+         * Wait for all submitted work to finish and log the run's throughput.
+         */
+        public RunReport await() {
+            try {
+                inFlight.acquire(maxConcurrency);
+                inFlight.release(maxConcurrency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Interrupted while waiting for {} run to finish", phase);
+            }
+            return finish();
+        }
+
+        /**
+         * Wait at most {@code timeout} for submitted work to finish. Work still in
+         * flight afterwards keeps running and is not counted in the report.
+         */
+        public RunReport await(Duration timeout) {
+            try {
+                if (inFlight.tryAcquire(maxConcurrency, timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                    inFlight.release(maxConcurrency);
+                } else {
+                    log.warn("{} {} tasks still in flight after {} s", maxConcurrency - inFlight.availablePermits(),
+                            phase, timeout.toSeconds());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Interrupted while waiting for {} run to finish", phase);
+            }
+            return finish();
+        }
+
+        // Counts so far without waiting, for checkpoints
+        public RunReport progress() {
+            return new RunReport(phase, submitted.get(), succeeded.get(), failed.get(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), maxConcurrency);
+        }
+
+        private RunReport finish() {
+            RunReport report = progress();
+            if (report.getTotal() > 0) {
+                log.info("Run {} finished: {} students ({} succeeded, {} failed) in {} ms, {} students/s at concurrency {}",
+                        phase, report.getTotal(), report.getSucceeded(), report.getFailed(),
+                        report.getDurationMillis(), String.format("%.2f", report.getThroughputPerSecond()),
+                        maxConcurrency);
+            }
+            return report;
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class RunReport {
+        private final String phase;
+        private final int total;
+        private final int succeeded;
+        private final int failed;
+        private final long durationMillis;
+        private final int concurrency;
+
+        public double getThroughputPerSecond() {
+            return durationMillis > 0 ? total * 1000.0 / durationMillis : total;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.college.attendance.service;
+
+import com.college.attendance.entity.AttendanceLedgerEntry.Phase;
+import com.college.attendance.service.EmailOutbox.OutboxEmail;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects attendance outcomes from the worker threads and writes them back as
+ * JDBC batch updates, one short transaction per batch. Outcomes land in the
+ * student's attendance_day row for the date; the counter and display flags on
+ * students are updated alongside, with the increment guarded by the day row so
+ * concurrent runs or admin edits cannot double count or lose an increment.
+ * Each outcome carries its notification email and its idempotency ledger key:
+ * the email goes into the outbox and the key is completed in the same
+ * transaction, so a call only counts as done once its outcome is durable.
+ * A batch is flushed when it reaches the batch size or on a fixed interval; a
+ * batch that fails to write is put back and retried on the next flush.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AttendanceResultSink {
+
+    private static final String INSERT_DAY_SQL =
+            "INSERT INTO attendance_day (attendance_date, sl_no, mark_attempts) VALUES (?, ?, 0)";
+    private static final String MARKED_STUDENT_SQL =
+            "UPDATE students SET attendance_count = attendance_count + 1, is_taken = ?, is_verified = ?, taken_on = ? " +
+            "WHERE sl_no = ? AND EXISTS (SELECT 1 FROM attendance_day d WHERE d.sl_no = students.sl_no " +
+            "AND d.attendance_date = ? AND d.marked_at IS NULL)";
+    private static final String MARKED_DAY_SQL =
+            "UPDATE attendance_day SET marked_at = ?, next_attempt_at = NULL " +
+            "WHERE attendance_date = ? AND sl_no = ? AND marked_at IS NULL";
+    private static final String VERIFIED_DAY_SQL =
+            "UPDATE attendance_day SET verified_at = ? WHERE attendance_date = ? AND sl_no = ? AND verified_at IS NULL";
+    private static final String VERIFIED_STUDENT_SQL =
+            "UPDATE students SET is_verified = ? WHERE sl_no = ?";
+    private static final String FAILED_ATTEMPT_SQL =
+            "UPDATE attendance_day SET mark_attempts = ?, next_attempt_at = ? " +
+            "WHERE attendance_date = ? AND sl_no = ? AND marked_at IS NULL";
+    private static final String QUEUE_COMPLETED_SQL =
+            "UPDATE attendance_queue SET completed_at = ?, lease_owner = NULL, lease_until = NULL " +
+            "WHERE attendance_date = ? AND sl_no = ?";
+    private static final String QUEUE_RETRY_SQL =
+            "UPDATE attendance_queue SET available_at = ?, lease_owner = NULL, lease_until = NULL " +
+            "WHERE attendance_date = ? AND sl_no = ? AND completed_at IS NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EmailOutbox emailOutbox;
+    private final SqlDialect sqlDialect;
+    private final IdempotencyLedger ledger;
+
+    @Value("${app.attendance.sink.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.attendance.sink.flush-interval-ms:1000}")
+    private long flushIntervalMillis;
+
+    private final BlockingDeque<Result> pending = new LinkedBlockingDeque<>();
+
+    // Size-triggered flushes pause until then after a failed write; the interval flush keeps retrying
+    private volatile long retryAtNanos;
+
+    private ScheduledExecutorService flusher;
+
+    private String insertDaySql;
+
+    @PostConstruct
+    public void start() {
+        insertDaySql = sqlDialect.insertIgnoringDuplicates(INSERT_DAY_SQL);
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "attendance-result-sink");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        flush();
+        if (!pending.isEmpty()) {
+            // Their ledger claims are taken over after the stale-claim timeout and the calls made again
+            log.error("Shutting down with {} attendance results unwritten", pending.size());
+        }
+    }
+
+    // Completes the student's MARK ledger key
+    public void recordMarked(Long slNo, String sic, LocalDate date, LocalDateTime takenOn, OutboxEmail email) {
+        record(new Result(ResultType.MARKED, slNo, sic, date, takenOn, 0, email));
+    }
+
+    // Completes the student's VERIFY ledger key
+    public void recordVerified(Long slNo, String sic, LocalDate date, LocalDateTime verifiedAt, OutboxEmail email) {
+        record(new Result(ResultType.VERIFIED, slNo, sic, date, verifiedAt, 0, email));
+    }
+
+    // The ERP answered that attendance is not recorded; completes the VERIFY ledger key
+    public void recordVerificationFailed(String sic, LocalDate date, OutboxEmail email) {
+        record(new Result(ResultType.VERIFICATION_FAILED, null, sic, date, null, 0, email));
+    }
+
+    // The email, if any, reports the final failure
+    public void recordFailedAttempt(Long slNo, LocalDate date, int attempts, LocalDateTime nextAttemptAt,
+                                    OutboxEmail email) {
+        record(new Result(ResultType.FAILED_ATTEMPT, slNo, null, date, nextAttemptAt, attempts, email));
+    }
+
+    /**
+     * Write everything recorded so far. Called at the end of each run so the next
+     * run's eligibility query sees the outcomes.
+     */
+    public synchronized void flush() {
+        List<Result> batch = new ArrayList<>(batchSize);
+        while (pending.drainTo(batch, batchSize) > 0) {
+            try {
+                write(batch);
+            } catch (Exception e) {
+                // Back at the head in order. The ledger keys stay claimed meanwhile, so no other node
+                // repeats these calls unless the results stay unwritten past the stale-claim timeout
+                for (int i = batch.size() - 1; i >= 0; i--) {
+                    pending.addFirst(batch.get(i));
+                }
+                retryAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+                log.error("Failed to write {} attendance results, {} waiting; retrying on the next flush",
+                        batch.size(), pending.size(), e);
+                return;
+            }
+            batch.clear();
+        }
+    }
+
+    private void record(Result result) {
+        pending.add(result);
+        if (pending.size() >= batchSize && System.nanoTime() - retryAtNanos >= 0) {
+            flush();
+        }
+    }
+
+    private void write(List<Result> batch) {
+        Map<LocalDate, Set<Long>> needRows = new HashMap<>();
+        List<Object[]> markedStudents = new ArrayList<>();
+        List<Object[]> markedDays = new ArrayList<>();
+        List<Object[]> verifiedDays = new ArrayList<>();
+        List<Object[]> verifiedStudents = new ArrayList<>();
+        List<Object[]> failedAttempts = new ArrayList<>();
+        List<Object[]> queueCompleted = new ArrayList<>();
+        List<Object[]> queueRetries = new ArrayList<>();
+        List<OutboxEmail> emails = new ArrayList<>();
+        Map<Phase, Map<LocalDate, List<String>>> ledgerKeys = new EnumMap<>(Phase.class);
+        Timestamp writtenAt = Timestamp.valueOf(LocalDateTime.now());
+
+        for (Result result : batch) {
+            if (result.email != null) {
+                emails.add(result.email);
+            }
+            Phase phase = result.type == ResultType.MARKED ? Phase.MARK
+                    : result.type == ResultType.VERIFIED || result.type == ResultType.VERIFICATION_FAILED
+                    ? Phase.VERIFY : null;
+            if (phase != null) {
+                ledgerKeys.computeIfAbsent(phase, p -> new HashMap<>())
+                        .computeIfAbsent(result.date, d -> new ArrayList<>()).add(result.sic);
+            }
+            Date date = Date.valueOf(result.date);
+            Timestamp at = result.at != null ? Timestamp.valueOf(result.at) : null;
+            switch (result.type) {
+                case MARKED -> {
+                    needRows.computeIfAbsent(result.date, d -> new HashSet<>()).add(result.slNo);
+                    markedStudents.add(new Object[]{true, false, at, result.slNo, date});
+                    markedDays.add(new Object[]{at, date, result.slNo});
+                    queueCompleted.add(new Object[]{at, date, result.slNo});
+                }
+                case VERIFIED -> {
+                    verifiedDays.add(new Object[]{at, date, result.slNo});
+                    verifiedStudents.add(new Object[]{true, result.slNo});
+                }
+                case FAILED_ATTEMPT -> {
+                    needRows.computeIfAbsent(result.date, d -> new HashSet<>()).add(result.slNo);
+                    failedAttempts.add(new Object[]{result.attempts, at, date, result.slNo});
+                    if (at == null) {
+                        queueCompleted.add(new Object[]{writtenAt, date, result.slNo});
+                    } else {
+                        queueRetries.add(new Object[]{at, date, result.slNo});
+                    }
+                }
+                case VERIFICATION_FAILED -> {
+                    // Nothing to write beyond the ledger key and the email
+                }
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            needRows.forEach(this::insertMissingDays);
+            // Students first: the increment only applies while the day row is still unmarked
+            if (!markedStudents.isEmpty()) {
+                jdbcTemplate.batchUpdate(MARKED_STUDENT_SQL, markedStudents);
+                jdbcTemplate.batchUpdate(MARKED_DAY_SQL, markedDays);
+            }
+            if (!verifiedDays.isEmpty()) {
+                jdbcTemplate.batchUpdate(VERIFIED_DAY_SQL, verifiedDays);
+                jdbcTemplate.batchUpdate(VERIFIED_STUDENT_SQL, verifiedStudents);
+            }
+            if (!failedAttempts.isEmpty()) {
+                jdbcTemplate.batchUpdate(FAILED_ATTEMPT_SQL, failedAttempts);
+            }
+            // Release the work queue claims in the same transaction as the outcome
+            if (!queueCompleted.isEmpty()) {
+                jdbcTemplate.batchUpdate(QUEUE_COMPLETED_SQL, queueCompleted);
+            }
+            if (!queueRetries.isEmpty()) {
+                jdbcTemplate.batchUpdate(QUEUE_RETRY_SQL, queueRetries);
+            }
+            ledgerKeys.forEach((phase, byDate) ->
+                    byDate.forEach((date, sics) -> ledger.completeAll(phase, date, sics)));
+            emailOutbox.enqueue(emails);
+        });
+        log.debug("Wrote {} marked, {} verified and {} failed-attempt results and {} emails",
+                markedDays.size(), verifiedDays.size(), failedAttempts.size(), emails.size());
+    }
+
+    // Another node, or an admin edit saving today's row, may insert the same row concurrently
+    private void insertMissingDays(LocalDate date, Set<Long> slNos) {
+        List<Object[]> inserts = new ArrayList<>(slNos.size());
+        for (Long slNo : slNos) {
+            inserts.add(new Object[]{Date.valueOf(date), slNo});
+        }
+        jdbcTemplate.batchUpdate(insertDaySql, inserts);
+    }
+
+    private enum ResultType {
+        MARKED,
+        VERIFIED,
+        VERIFICATION_FAILED,
+        FAILED_ATTEMPT
+    }
+
+    @RequiredArgsConstructor
+    private static class Result {
+        private final ResultType type;
+        private final Long slNo;
+        private final String sic;
+        private final LocalDate date;
+        private final LocalDateTime at;
+        private final int attempts;
+        private final OutboxEmail email;
+    }
+}
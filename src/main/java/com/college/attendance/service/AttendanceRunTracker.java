@@ -0,0 +1,102 @@
+package com.college.attendance.service;
+
+import com.college.attendance.entity.AttendanceRun;
+import com.college.attendance.entity.AttendanceRun.RunState;
+import com.college.attendance.repository.AttendanceRunRepository;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Persists run progress in attendance_runs. A run interrupted by a shutdown,
+ * or left RUNNING by a node that stopped checkpointing, is resumed by the next
+ * run of the same phase on the same day, which keeps its counts and frees its
+ * claims. Which students are still due is tracked by the work queue, not here.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AttendanceRunTracker {
+
+    private final AttendanceRunRepository runRepository;
+    private final AttendanceWorkQueue workQueue;
+    private final NodeIdentity nodeIdentity;
+
+    @Value("${app.attendance.run.stale-seconds:600}")
+    private long staleSeconds;
+
+    /**
+     * Resume the day's interrupted run of this phase if there is one, otherwise
+     * start a new one. Claims still leased to the interrupted run's node are handed back.
+     */
+    @Transactional
+    public TrackedRun begin(LocalDate date, String phase) {
+        LocalDateTime now = LocalDateTime.now();
+        // A live node checkpoints after every claim, which takes at most about one slot
+        LocalDateTime staleBefore = now.minusSeconds(staleSeconds);
+
+        for (AttendanceRun candidate : runRepository.findResumable(date, phase, staleBefore)) {
+            String previousNode = candidate.getNodeId();
+            if (runRepository.takeOver(candidate.getId(), candidate.getState(), candidate.getUpdatedAt(),
+                    RunState.RUNNING, nodeIdentity.getId(), now) == 0) {
+                continue; // Resumed by another node in the meantime
+            }
+            if (!previousNode.equals(nodeIdentity.getId())) {
+                workQueue.releaseOwnedBy(date, previousNode);
+            }
+            AttendanceRun resumed = runRepository.findById(candidate.getId()).orElseThrow();
+            log.info("Resuming {} run {} from {} ({} submitted so far)", phase, resumed.getId(),
+                    previousNode, resumed.getSubmitted());
+            return new TrackedRun(resumed, true);
+        }
+
+        AttendanceRun run = new AttendanceRun();
+        run.setPhase(phase);
+        run.setAttendanceDate(date);
+        run.setNodeId(nodeIdentity.getId());
+        run.setState(RunState.RUNNING);
+        run.setStartedAt(now);
+        run.setUpdatedAt(now);
+        return new TrackedRun(runRepository.save(run), false);
+    }
+
+    /**
+     * Record progress. Counts are added to whatever the run had before it was resumed.
+     */
+    public void checkpoint(TrackedRun tracked, AttendanceMarkingEngine.RunReport progress, RunState state) {
+        AttendanceRun run = tracked.getRecord();
+        LocalDateTime now = LocalDateTime.now();
+        run.setSubmitted(tracked.baseSubmitted + progress.getTotal());
+        run.setSucceeded(tracked.baseSucceeded + progress.getSucceeded());
+        run.setFailed(tracked.baseFailed + progress.getFailed());
+        run.setState(state);
+        run.setUpdatedAt(now);
+        if (state != RunState.RUNNING) {
+            run.setFinishedAt(now);
+        }
+        runRepository.save(run);
+    }
+
+    @Getter
+    public static class TrackedRun {
+        private final AttendanceRun record;
+        private final boolean resumed;
+        private final int baseSubmitted;
+        private final int baseSucceeded;
+        private final int baseFailed;
+
+        private TrackedRun(AttendanceRun record, boolean resumed) {
+            this.record = record;
+            this.resumed = resumed;
+            this.baseSubmitted = record.getSubmitted();
+            this.baseSucceeded = record.getSucceeded();
+            this.baseFailed = record.getFailed();
+        }
+    }
+}
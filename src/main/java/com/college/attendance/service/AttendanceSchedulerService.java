@@ -1,36 +1,70 @@
 package com.college.attendance.service;
 
+import com.college.attendance.entity.AttendanceDay;
+import com.college.attendance.entity.AttendanceLedgerEntry.Phase;
+import com.college.attendance.entity.AttendanceRun.RunState;
 import com.college.attendance.entity.Student;
+import com.college.attendance.repository.AttendanceDayRepository;
 import com.college.attendance.repository.StudentRepository;
+import com.college.attendance.service.AttendanceApiService.ErpUnavailableException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class AttendanceSchedulerService {
 
+    private static final Duration JOB_LOCK_AT_MOST = Duration.ofMinutes(10);
+    private static final Duration JOB_LOCK_AT_LEAST = Duration.ofMinutes(1);
+
     private final StudentRepository studentRepository;
+    private final AttendanceDayRepository attendanceDayRepository;
     private final AttendanceApiService attendanceApiService;
     private final EmailService emailService;
     private final StudentService studentService;
+    private final AttendanceMarkingEngine markingEngine;
+    private final VerificationQueueService verificationQueue;
+    private final Environment environment;
+    private final ConnectionPoolMonitor poolMonitor;
+    private final AttendanceResultSink resultSink;
+    private final EligibilityIndex eligibilityIndex;
+    private final AttendanceWorkQueue workQueue;
+    private final SchedulerLockService schedulerLock;
+    private final IdempotencyLedger ledger;
+    private final AttendanceRunTracker runTracker;
+    private final NodeIdentity nodeIdentity;
+
+    @Value("${app.attendance.queue.claim-size:16}")
+    private int claimSize;
 
-    @Value("${app.attendance.start-time}")
-    private String startTime;
+    @Value("${app.attendance.queue.lease-seconds:120}")
+    private long leaseSeconds;
 
-    @Value("${app.attendance.end-time}")
-    private String endTime;
+    @Value("${app.attendance.shutdown.grace-seconds:20}")
+    private long shutdownGraceSeconds;
 
     @Value("${app.attendance.verification-delay-min}")
     private int verificationDelayMin;
@@ -38,115 +72,312 @@ public class AttendanceSchedulerService {
     @Value("${app.attendance.verification-delay-max}")
     private int verificationDelayMax;
 
+    @Value("${app.attendance.retry.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.attendance.retry.base-delay-seconds:60}")
+    private long retryBaseDelaySeconds;
+
+    @Value("${app.attendance.retry.max-delay-seconds:1800}")
+    private long retryMaxDelaySeconds;
+
     private final Random random = new Random();
 
-    // Run every minute to check if it's time to mark attendance
-    @Scheduled(cron = "0 * * * * *")
-    @Transactional
-    public void checkAndMarkAttendance() {
-        LocalTime now = LocalTime.now();
-        LocalTime start = LocalTime.parse(startTime);
-        LocalTime end = LocalTime.parse(endTime);
-
-        if (now.isAfter(start) && now.isBefore(end)) {
-            log.info("Current time {} is within attendance window ({} - {})", now, start, end);
-            markAttendanceForEligibleStudents();
-        }
-    }
+    private final AtomicBoolean stopping = new AtomicBoolean();
+    private final AtomicInteger activeRuns = new AtomicInteger();
 
-    @Transactional
     public void markAttendanceForEligibleStudents() {
+        markEligibleStudents(AttendanceWindow.from(environment), Integer.MAX_VALUE, 0, 0);
+    }
+
+    /**
+     * Mark students assigned to the given slot or an earlier one, spreading the
+     * calls evenly over most of the slot so the ERP and SMTP see a smooth rate.
+     */
+    public void markAttendanceForSlot(AttendanceWindow window, int slot) {
+        long spreadNanos = window.getSlotLength().multipliedBy(9).dividedBy(10).toNanos();
+        markEligibleStudents(window, slot, spreadNanos, window.getSlotCount() - slot);
+    }
+
+    /**
+     * Queue the worklist from the in-memory eligibility index, then claim small
+     * batches from the shared work queue until nothing due is left, so several
+     * nodes can work through the same day without marking a student twice.
+     * No transaction spans the run: claims and student reads are short
+     * transactions of their own, ERP calls run outside any transaction, and
+     * results and their emails are written back in batches by the result sink. Pacing assumes
+     * the unmarked students are spread evenly over the {@code remainingSlots}
+     * slots still to come. Progress is checkpointed after every claim. Queueing is
+     * idempotent, so a run interrupted by a shutdown is resumed by the next tick
+     * from the work queue, which also picks up students that became due since.
+     */
+    private void markEligibleStudents(AttendanceWindow window, int maxSlot, long spreadNanos, int remainingSlots) {
         LocalDate today = LocalDate.now();
-        List<Student> students = studentRepository.findStudentsForAttendance(today);
+        if (stopping.get()) {
+            log.info("Shutting down, not starting a mark run");
+            return;
+        }
+        activeRuns.incrementAndGet();
+        try {
+            AttendanceRunTracker.TrackedRun tracked = runTracker.begin(today, "mark");
+            List<Long> worklist = eligibilityIndex.worklist(today, LocalDateTime.now());
+            workQueue.enqueue(today, worklist, window);
+            poolMonitor.logUsage("before mark run");
 
-        log.info("Found {} students eligible for attendance", students.size());
+            long pacingNanos = 0;
+            if (spreadNanos > 0) {
+                long expected = (worklist.size() + remainingSlots - 1) / Math.max(1, remainingSlots);
+                pacingNanos = expected > 0 ? spreadNanos / expected : 0;
+            }
+            // The lease has to outlast the paced submission of a whole claim plus the ERP call
+            Duration lease = Duration.ofSeconds(leaseSeconds).plusNanos(pacingNanos * claimSize);
 
-        for (Student student : students) {
-            try {
-                boolean success = attendanceApiService.markAttendance(student.getSic());
+            AttendanceMarkingEngine.Run run = markingEngine.start("mark", pacingNanos);
+            int found = 0;
+            List<Long> claimed;
+            claims:
+            while (!stopping.get() && !Thread.currentThread().isInterrupted()
+                    && !(claimed = workQueue.claim(today, maxSlot, claimSize, lease)).isEmpty()) {
+                List<Student> students = new ArrayList<>(studentRepository.findAllById(claimed));
+                students.sort(Comparator.comparing(Student::getSlNo));
+                Map<Long, Integer> attempts = workQueue.attemptsToday(today, claimed);
 
-                if (success) {
-                    student.setIsTaken(true);
-                    student.setTakenOn(LocalDateTime.now()); // Set the timestamp when attendance is taken
-                    student.setAttendanceCount(student.getAttendanceCount() + 1);
-                    studentRepository.save(student);
+                // Claimed students that were deleted in the meantime are done
+                Set<Long> missing = new HashSet<>(claimed);
+                students.forEach(student -> missing.remove(student.getSlNo()));
+                missing.forEach(slNo -> workQueue.complete(today, slNo, LocalDateTime.now()));
 
-                    emailService.sendAttendanceConfirmation(student.getEmail(), student.getSic(), false);
-                    log.info("Attendance marked for SIC: {} at {}", student.getSic(), student.getTakenOn());
+                // So are students paused or deactivated since they were queued, judged by the row just
+                // loaded rather than the index, and students a reopened row found out of attempts
+                students.removeIf(student -> {
+                    if (!student.isEligibleOn(today)) {
+                        log.info("Skipping attendance for SIC: {} (status {})", student.getSic(), student.getStatus());
+                    } else if (attempts.getOrDefault(student.getSlNo(), 0) >= maxAttempts) {
+                        log.info("Skipping attendance for SIC: {} (out of attempts today)", student.getSic());
+                    } else {
+                        return false;
+                    }
+                    workQueue.complete(today, student.getSlNo(), LocalDateTime.now());
+                    return true;
+                });
 
-                    // Schedule verification with random delay
-                    scheduleVerification(student);
-                } else {
-                    emailService.sendAttendanceFailure(student.getEmail(), student.getSic(), false);
-                    log.error("Failed to mark attendance for SIC: {}", student.getSic());
+                for (int i = 0; i < students.size(); i++) {
+                    Student student = students.get(i);
+                    int previous = attempts.getOrDefault(student.getSlNo(), 0);
+                    if (stopping.get()
+                            || !run.submit(student.getSic(), () -> markAttendance(window, today, student, previous))) {
+                        workQueue.release(today, students.subList(i, students.size()).stream()
+                                .map(Student::getSlNo).collect(Collectors.toList()));
+                        break claims;
+                    }
+                    found++;
                 }
-            } catch (Exception e) {
-                log.error("Error processing attendance for SIC: {}", student.getSic(), e);
+                runTracker.checkpoint(tracked, run.progress(), RunState.RUNNING);
+            }
+
+            log.info("Claimed {} students for attendance on node {}", found, nodeIdentity.getId());
+            boolean interrupted = stopping.get() || Thread.currentThread().isInterrupted();
+            AttendanceMarkingEngine.RunReport report = interrupted
+                    ? run.await(Duration.ofSeconds(shutdownGraceSeconds))
+                    : run.await();
+            resultSink.flush();
+            runTracker.checkpoint(tracked, report, interrupted ? RunState.INTERRUPTED : RunState.COMPLETED);
+            poolMonitor.logUsage("after mark run");
+        } finally {
+            synchronized (activeRuns) {
+                activeRuns.decrementAndGet();
+                activeRuns.notifyAll();
             }
         }
     }
 
+    /**
+     * On shutdown stop claiming new students and give the current run a bounded
+     * time to finish its in-flight ERP calls and checkpoint, so the next start
+     * resumes it. Runs before the web server and worker pools are stopped.
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void onShutdown() {
+        stopping.set(true);
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(shutdownGraceSeconds + 5);
+        synchronized (activeRuns) {
+            while (activeRuns.get() > 0 && System.currentTimeMillis() < deadline) {
+                try {
+                    activeRuns.wait(Math.max(1, deadline - System.currentTimeMillis()));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        if (activeRuns.get() > 0) {
+            log.warn("Mark run still active at shutdown; it will be resumed from its last checkpoint");
+        }
+    }
+
+    private boolean markAttendance(AttendanceWindow window, LocalDate today, Student student, int previousAttempts) {
+        IdempotencyLedger.Claim claim = ledger.tryClaim(student.getSic(), today, Phase.MARK);
+        if (claim != IdempotencyLedger.Claim.CLAIMED) {
+            log.info("Skipping attendance for SIC: {} (ledger says {})", student.getSic(), claim);
+            if (claim == IdempotencyLedger.Claim.DONE) {
+                workQueue.complete(today, student.getSlNo(), LocalDateTime.now());
+            }
+            return false;
+        }
+
+        boolean success;
+        try {
+            success = attendanceApiService.markAttendance(student.getSic());
+        } catch (ErpUnavailableException e) {
+            // Not attempted, so it does not count against the retry budget
+            ledger.release(student.getSic(), today, Phase.MARK);
+            if (!LocalTime.now().isBefore(window.lastSlotStart())) {
+                // No later tick in the window, so the student would silently stay unmarked
+                log.error("ERP unavailable in the last slot, giving up on attendance for SIC: {} ({})",
+                        student.getSic(), e.getMessage());
+                recordFinalFailure(today, student);
+                return false;
+            }
+            log.warn("Deferring attendance for SIC: {} ({})", student.getSic(), e.getMessage());
+            return false;
+        } catch (RuntimeException e) {
+            ledger.release(student.getSic(), today, Phase.MARK);
+            throw e;
+        }
+
+        if (success) {
+            // The sink completes the ledger key in the transaction that writes the outcome and
+            // queues the email; until then the key stays claimed, so no other tick repeats the call
+            LocalDateTime takenOn = LocalDateTime.now(); // Timestamp when attendance is taken
+            resultSink.recordMarked(student.getSlNo(), student.getSic(), today, takenOn,
+                    emailService.attendanceConfirmation(student.getEmail(), student.getSic(), false));
+            eligibilityIndex.marked(student.getSlNo(), today);
+            log.info("Attendance marked for SIC: {} at {}", student.getSic(), takenOn);
+
+            // Schedule verification with random delay
+            scheduleVerification(student);
+        } else {
+            ledger.release(student.getSic(), today, Phase.MARK);
+            recordFailedAttempt(window, today, student, previousAttempts);
+        }
+        return success;
+    }
+
+    /**
+     * Count a failed attempt and back off exponentially with jitter. The failure
+     * email is only sent once the retry budget runs out or no slot tick is left
+     * in the window to pick up the next attempt.
+     */
+    private void recordFailedAttempt(AttendanceWindow window, LocalDate today, Student student, int previousAttempts) {
+        int attempts = previousAttempts + 1;
+        long backoffSeconds = Math.min(retryMaxDelaySeconds, retryBaseDelaySeconds << Math.min(attempts - 1, 20));
+        long jitteredSeconds = backoffSeconds / 2 + random.nextInt((int) (backoffSeconds / 2) + 1);
+        LocalDateTime nextAttemptAt = LocalDateTime.now().plusSeconds(jitteredSeconds);
+
+        boolean finalAttempt = attempts >= maxAttempts
+                || nextAttemptAt.toLocalTime().isAfter(window.lastSlotStart());
+
+        if (finalAttempt) {
+            recordFinalFailure(today, student);
+            log.error("Failed to mark attendance for SIC: {} after {} attempts", student.getSic(), attempts);
+        } else {
+            resultSink.recordFailedAttempt(student.getSlNo(), today, attempts, nextAttemptAt, null);
+            eligibilityIndex.failedAttempt(student.getSlNo(), today, attempts, nextAttemptAt);
+            log.warn("Failed to mark attendance for SIC: {} (attempt {} of {}), retrying at {}",
+                    student.getSic(), attempts, maxAttempts, nextAttemptAt);
+        }
+    }
+
+    // Out of attempts for today: no retry is scheduled and the student is told to mark manually
+    private void recordFinalFailure(LocalDate today, Student student) {
+        resultSink.recordFailedAttempt(student.getSlNo(), today, maxAttempts, null,
+                emailService.attendanceFailure(student.getEmail(), student.getSic(), false));
+        eligibilityIndex.failedAttempt(student.getSlNo(), today, maxAttempts, null);
+    }
+
     private void scheduleVerification(Student student) {
         int delayMinutes = verificationDelayMin + random.nextInt(verificationDelayMax - verificationDelayMin + 1);
         log.info("Scheduling verification for SIC: {} after {} minutes", student.getSic(), delayMinutes);
 
-        new Thread(() -> {
-            try {
-                TimeUnit.MINUTES.sleep(delayMinutes);
-                verifyAttendance(student.getSic());
-            } catch (InterruptedException e) {
-                log.error("Verification thread interrupted for SIC: {}", student.getSic(), e);
-                Thread.currentThread().interrupt();
-            }
-        }).start();
+        verificationQueue.enqueue(student.getSic(), delayMinutes);
     }
 
-    @Transactional
-    public void verifyAttendance(String sic) {
+    /**
+     * Verify one student's attendance for today. The student and today's
+     * attendance_day row are read in short transactions of their own, the ERP
+     * call runs outside any transaction, and the outcome and its email are
+     * written back through the result sink.
+     */
+    public boolean verifyAttendance(String sic) {
         Student student = studentRepository.findBySic(sic).orElse(null);
         
         if (student == null) {
             log.warn("Student not found for verification: {}", sic);
-            return;
+            return false;
         }
 
-        if (!student.getIsTaken() || student.getIsVerified()) {
+        LocalDate today = LocalDate.now();
+        if (eligibilityIndex.isVerifiedToday(student.getSlNo(), today)) {
+            log.info("Skipping verification for SIC: {} (already verified)", sic);
+            return true;
+        }
+        AttendanceDay day = attendanceDayRepository.findById(new AttendanceDay.Key(today, student.getSlNo()))
+                .orElse(null);
+        if (day == null || day.getMarkedAt() == null || day.getVerifiedAt() != null) {
             log.info("Skipping verification for SIC: {} (already verified or not taken)", sic);
-            return;
+            return day != null && day.getVerifiedAt() != null;
+        }
+
+        IdempotencyLedger.Claim claim = ledger.tryClaim(sic, today, Phase.VERIFY);
+        if (claim != IdempotencyLedger.Claim.CLAIMED) {
+            log.info("Skipping verification for SIC: {} (ledger says {})", sic, claim);
+            return false;
         }
 
+        boolean success;
         try {
-            boolean success = attendanceApiService.verifyAttendance(student.getSic());
-
-            if (success) {
-                student.setIsVerified(true);
-                studentRepository.save(student);
-                emailService.sendAttendanceConfirmation(student.getEmail(), student.getSic(), true);
-                log.info("Attendance verified for SIC: {}", student.getSic());
-            } else {
-                emailService.sendAttendanceFailure(student.getEmail(), student.getSic(), true);
-                log.error("Failed to verify attendance for SIC: {}", student.getSic());
-            }
-        } catch (Exception e) {
+            success = attendanceApiService.verifyAttendance(student.getSic());
+        } catch (ErpUnavailableException e) {
+            ledger.release(sic, today, Phase.VERIFY);
+            throw e;
+        } catch (RuntimeException e) {
+            // No answer from the ERP, so the key goes back and a later verification may claim it
+            ledger.release(sic, today, Phase.VERIFY);
             log.error("Error verifying attendance for SIC: {}", student.getSic(), e);
+            return false;
+        }
+
+        // Verification is not retried after a definite answer, so either outcome completes the
+        // ledger key, in the sink's transaction that writes the outcome and queues the email
+        if (success) {
+            resultSink.recordVerified(student.getSlNo(), sic, today, LocalDateTime.now(),
+                    emailService.attendanceConfirmation(student.getEmail(), student.getSic(), true));
+            eligibilityIndex.verified(student.getSlNo(), today);
+            log.info("Attendance verified for SIC: {}", student.getSic());
+        } else {
+            resultSink.recordVerificationFailed(sic, today,
+                    emailService.attendanceFailure(student.getEmail(), student.getSic(), true));
+            log.error("Failed to verify attendance for SIC: {}", student.getSic());
         }
+        return success;
     }
 
-    // Reset daily flags at midnight
+    // Reactivate expired pauses at midnight. Daily state lives in attendance_day,
+    // keyed by date, so there are no flags to reset. Runs on one node only.
     @Scheduled(cron = "0 0 0 * * *")
-    @Transactional
-    public void resetDailyFlags() {
-        log.info("Running daily reset at midnight");
-        studentService.resetDailyFlags();
-        studentService.updateExpiredPauses();
+    public void updateExpiredPausesAtMidnight() {
+        schedulerLock.runExclusively("updateExpiredPausesAtMidnight", JOB_LOCK_AT_MOST, JOB_LOCK_AT_LEAST, () -> {
+            log.info("Running midnight pause update");
+            studentService.updateExpiredPauses();
+        });
     }
 
-    // Also reset at the start of attendance window as a backup
+    // Also update at the start of attendance window as a backup
     @Scheduled(cron = "0 30 19 * * *") // 7:30 PM (5 minutes before attendance window)
-    @Transactional
-    public void resetBeforeAttendance() {
-        log.info("Running pre-attendance reset and pause update");
-        studentService.resetDailyFlags(); // Reset flags if date changed (backup if midnight reset failed)
-        studentService.updateExpiredPauses();
+    public void updateExpiredPausesBeforeAttendance() {
+        schedulerLock.runExclusively("updateExpiredPausesBeforeAttendance", JOB_LOCK_AT_MOST, JOB_LOCK_AT_LEAST, () -> {
+            log.info("Running pre-attendance pause update");
+            studentService.updateExpiredPauses();
+        });
     }
 }
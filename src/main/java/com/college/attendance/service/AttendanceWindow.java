@@ -0,0 +1,53 @@
+package com.college.attendance.service;
+
+import lombok.Getter;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.time.LocalTime;
+
+/**
+ * The daily attendance window split into equal slots.
+ * Each student gets a fixed slot from their sl_no, so marking load is
+ * spread evenly across the window instead of bursting at the start.
+ */
+@Getter
+public class AttendanceWindow {
+
+    private final LocalTime start;
+    private final LocalTime end;
+    private final int slotCount;
+    private final Duration slotLength;
+
+    public AttendanceWindow(LocalTime start, LocalTime end, int slotMinutes) {
+        this.start = start;
+        this.end = end;
+        Duration length = Duration.between(start, end);
+        this.slotCount = (int) Math.max(1, length.toMinutes() / Math.max(1, slotMinutes));
+        this.slotLength = length.dividedBy(slotCount);
+    }
+
+    public static AttendanceWindow from(Environment environment) {
+        return new AttendanceWindow(
+                LocalTime.parse(environment.getRequiredProperty("app.attendance.start-time")),
+                LocalTime.parse(environment.getRequiredProperty("app.attendance.end-time")),
+                environment.getProperty("app.attendance.slot-minutes", Integer.class, 5));
+    }
+
+    public int slotOf(Long slNo) {
+        return (int) Math.floorMod(slNo, (long) slotCount);
+    }
+
+    public LocalTime slotStart(int slot) {
+        return start.plus(slotLength.multipliedBy(slot));
+    }
+
+    public LocalTime lastSlotStart() {
+        return slotStart(slotCount - 1);
+    }
+
+    @Override
+    public String toString() {
+        return start + " - " + end + " (" + slotCount + " slots of " + slotLength.toMinutes() + " min)";
+    }
+}
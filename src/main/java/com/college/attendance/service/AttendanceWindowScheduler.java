@@ -0,0 +1,89 @@
+package com.college.attendance.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Wakes exactly at the attendance window's slot boundaries instead of polling
+ * every minute. Each tick marks the students assigned to the slots that have
+ * started so far, so retries and late registrations are picked up on the next tick.
+ */
+@Service
+@Profile("!simulation") // The simulation drives runs itself
+@RequiredArgsConstructor
+@Slf4j
+public class AttendanceWindowScheduler {
+
+    private final TaskScheduler taskScheduler;
+    private final Environment environment;
+    private final AttendanceSchedulerService schedulerService;
+
+    private final List<ScheduledFuture<?>> plannedTicks = new ArrayList<>();
+    private final AtomicBoolean tickRunning = new AtomicBoolean();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        replan();
+    }
+
+    /**
+     * Re-read the app.attendance.* window settings and plan the next window.
+     * Runs at startup and again whenever a window closes.
+     */
+    public synchronized void replan() {
+        plannedTicks.forEach(tick -> tick.cancel(false));
+        plannedTicks.clear();
+
+        AttendanceWindow window = AttendanceWindow.from(environment);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate day = now.toLocalTime().isBefore(window.getEnd()) ? now.toLocalDate() : now.toLocalDate().plusDays(1);
+
+        for (int slot = 0; slot < window.getSlotCount(); slot++) {
+            LocalDateTime tickAt = day.atTime(window.slotStart(slot));
+            boolean nextSlotStarted = slot + 1 < window.getSlotCount()
+                    && !day.atTime(window.slotStart(slot + 1)).isAfter(now);
+            if (nextSlotStarted) {
+                continue; // Covered by the current slot's tick, which includes all earlier slots
+            }
+            int currentSlot = slot;
+            plannedTicks.add(taskScheduler.schedule(() -> tick(window, currentSlot), toInstant(tickAt)));
+        }
+        plannedTicks.add(taskScheduler.schedule(this::replan, toInstant(day.atTime(window.getEnd()))));
+
+        log.info("Planned attendance window {} on {}", window, day);
+    }
+
+    private void tick(AttendanceWindow window, int slot) {
+        if (!tickRunning.compareAndSet(false, true)) {
+            log.warn("Previous attendance slot still running, skipping slot {} (picked up by the next tick)", slot);
+            return;
+        }
+        try {
+            log.info("Attendance window slot {} of {} started", slot + 1, window.getSlotCount());
+            schedulerService.markAttendanceForSlot(window, slot);
+        } catch (Exception e) {
+            log.error("Error running attendance slot {}", slot, e);
+        } finally {
+            tickRunning.set(false);
+        }
+    }
+
+    private static Instant toInstant(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant();
+    }
+}
@@ -0,0 +1,182 @@
+package com.college.attendance.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Day's marking worklist shared by all nodes through the attendance_queue table.
+ * Each tick adds the locally known eligible students that are not queued yet,
+ * then nodes claim small batches with {@code FOR UPDATE SKIP LOCKED} so no two
+ * nodes work on the same student. A claim carries a lease; the result sink
+ * completes or reschedules the row, and an expired lease makes it claimable again.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AttendanceWorkQueue {
+
+    private static final String CLAIM_SQL =
+            "SELECT sl_no FROM attendance_queue WHERE attendance_date = ? AND completed_at IS NULL " +
+            "AND slot <= ? AND available_at <= ? AND (lease_until IS NULL OR lease_until < ?) " +
+            "ORDER BY sl_no LIMIT ? FOR UPDATE SKIP LOCKED";
+    private static final String LEASE_SQL =
+            "UPDATE attendance_queue SET lease_owner = ?, lease_until = ? WHERE attendance_date = ? AND sl_no = ?";
+    private static final String RELEASE_SQL =
+            "UPDATE attendance_queue SET lease_owner = NULL, lease_until = NULL " +
+            "WHERE attendance_date = ? AND sl_no = ? AND lease_owner = ? AND completed_at IS NULL";
+    private static final String RELEASE_OWNER_SQL =
+            "UPDATE attendance_queue SET lease_owner = NULL, lease_until = NULL " +
+            "WHERE attendance_date = ? AND lease_owner = ? AND completed_at IS NULL";
+    private static final String COMPLETE_SQL =
+            "UPDATE attendance_queue SET completed_at = ?, lease_owner = NULL, lease_until = NULL " +
+            "WHERE attendance_date = ? AND sl_no = ?";
+    private static final String REOPEN_SQL =
+            "UPDATE attendance_queue SET completed_at = NULL, available_at = ?, lease_owner = NULL, lease_until = NULL " +
+            "WHERE attendance_date = ? AND sl_no = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SqlDialect sqlDialect;
+    private final NodeIdentity nodeIdentity;
+
+    @Value("${app.attendance.chunk-size:500}")
+    private int chunkSize;
+
+    private String insertSql;
+
+    @PostConstruct
+    public void init() {
+        // Another node may queue the same student between our existence check and the insert
+        insertSql = sqlDialect.insertIgnoringDuplicates(
+                "INSERT INTO attendance_queue (attendance_date, sl_no, slot, available_at) VALUES (?, ?, ?, ?)");
+        log.info("Attendance work queue running as node {}", nodeIdentity.getId());
+    }
+
+    /**
+     * Add the given students to the day's queue unless already queued. Safe to
+     * call on every tick and from every node.
+     */
+    public int enqueue(LocalDate date, List<Long> slNos, AttendanceWindow window) {
+        int added = 0;
+        for (int from = 0; from < slNos.size(); from += chunkSize) {
+            List<Long> chunk = slNos.subList(from, Math.min(from + chunkSize, slNos.size()));
+            Set<Long> queued = new HashSet<>(queuedAmong(date, chunk));
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+            List<Object[]> inserts = new ArrayList<>();
+            for (Long slNo : chunk) {
+                if (!queued.contains(slNo)) {
+                    inserts.add(new Object[]{Date.valueOf(date), slNo, window.slotOf(slNo), now});
+                }
+            }
+            if (inserts.isEmpty()) {
+                continue;
+            }
+            try {
+                jdbcTemplate.batchUpdate(insertSql, inserts);
+                added += inserts.size();
+            } catch (DuplicateKeyException e) {
+                log.debug("Students already queued by another node for {}", date);
+            }
+        }
+        if (added > 0) {
+            log.info("Queued {} students for {}", added, date);
+        }
+        return added;
+    }
+
+    /**
+     * Claim up to {@code limit} due students in slots up to {@code maxSlot} for
+     * this node. Rows locked by another node's claim are skipped, not waited on.
+     */
+    public List<Long> claim(LocalDate date, int maxSlot, int limit, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp leaseUntil = Timestamp.valueOf(now.plus(lease));
+        return transactionTemplate.execute(status -> {
+            List<Long> slNos = jdbcTemplate.queryForList(CLAIM_SQL, Long.class, Date.valueOf(date), maxSlot,
+                    Timestamp.valueOf(now), Timestamp.valueOf(now), limit);
+            List<Object[]> leases = new ArrayList<>(slNos.size());
+            for (Long slNo : slNos) {
+                leases.add(new Object[]{nodeIdentity.getId(), leaseUntil, Date.valueOf(date), slNo});
+            }
+            if (!leases.isEmpty()) {
+                jdbcTemplate.batchUpdate(LEASE_SQL, leases);
+            }
+            return slNos;
+        });
+    }
+
+    // Hand back claims this node will not work on, so other nodes need not wait for the lease
+    public void release(LocalDate date, List<Long> slNos) {
+        List<Object[]> args = new ArrayList<>(slNos.size());
+        for (Long slNo : slNos) {
+            args.add(new Object[]{Date.valueOf(date), slNo, nodeIdentity.getId()});
+        }
+        if (!args.isEmpty()) {
+            jdbcTemplate.batchUpdate(RELEASE_SQL, args);
+        }
+    }
+
+    // Hand back every open claim of a node that is gone, e.g. before resuming its run
+    public int releaseOwnedBy(LocalDate date, String owner) {
+        return jdbcTemplate.update(RELEASE_OWNER_SQL, Date.valueOf(date), owner);
+    }
+
+    public void complete(LocalDate date, Long slNo, LocalDateTime at) {
+        jdbcTemplate.update(COMPLETE_SQL, Timestamp.valueOf(at), Date.valueOf(date), slNo);
+    }
+
+    public void reopen(LocalDate date, Long slNo, LocalDateTime at) {
+        jdbcTemplate.update(REOPEN_SQL, Timestamp.valueOf(at), Date.valueOf(date), slNo);
+    }
+
+    /**
+     * Today's failed attempts for the given students, read from attendance_day
+     * so attempts made on other nodes count too.
+     */
+    public Map<Long, Integer> attemptsToday(LocalDate date, List<Long> slNos) {
+        Map<Long, Integer> attempts = new HashMap<>();
+        if (slNos.isEmpty()) {
+            return attempts;
+        }
+        List<Object> args = new ArrayList<>(slNos.size() + 1);
+        args.add(Date.valueOf(date));
+        args.addAll(slNos);
+        String placeholders = String.join(", ", Collections.nCopies(slNos.size(), "?"));
+        jdbcTemplate.query("SELECT sl_no, mark_attempts FROM attendance_day WHERE attendance_date = ? " +
+                        "AND sl_no IN (" + placeholders + ")",
+                rs -> {
+                    attempts.put(rs.getLong("sl_no"), rs.getInt("mark_attempts"));
+                }, args.toArray());
+        return attempts;
+    }
+
+    private List<Long> queuedAmong(LocalDate date, List<Long> slNos) {
+        List<Object> args = new ArrayList<>(slNos.size() + 1);
+        args.add(Date.valueOf(date));
+        args.addAll(slNos);
+        String placeholders = String.join(", ", Collections.nCopies(slNos.size(), "?"));
+        return jdbcTemplate.queryForList(
+                "SELECT sl_no FROM attendance_queue WHERE attendance_date = ? AND sl_no IN (" + placeholders + ")",
+                Long.class, args.toArray());
+    }
+}
@@ -0,0 +1,182 @@
+package com.college.attendance.service;
+
+import com.college.attendance.dto.BroadcastJobResponse;
+import com.college.attendance.entity.BroadcastJob;
+import com.college.attendance.entity.BroadcastJob.JobState;
+import com.college.attendance.entity.EmailOutboxMessage.OutboxStatus;
+import com.college.attendance.repository.BroadcastJobRepository;
+import com.college.attendance.repository.StudentRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends admin messages to every student in the background. The request only
+ * renders the body and records the job; a worker thread then walks the roster
+ * in keyset pages and queues each page in the email outbox, checkpointing the
+ * job in the same transaction. Sending, retries and backoff are the outbox's.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BroadcastService {
+
+    private final BroadcastJobRepository jobRepository;
+    private final StudentRepository studentRepository;
+    private final EmailOutbox outbox;
+    private final EmailService emailService;
+    private final TransactionTemplate transactionTemplate;
+    private final NodeIdentity nodeIdentity;
+
+    @Value("${app.mail.broadcast.page-size:500}")
+    private int pageSize;
+
+    // A queueing job not checkpointed for this long is taken over by the next sweep
+    @Value("${app.mail.broadcast.stale-seconds:120}")
+    private long staleSeconds;
+
+    @Value("${app.mail.broadcast.sweep-seconds:60}")
+    private long sweepSeconds;
+
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "broadcast-jobs");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Sweep for stalled jobs on startup and then periodically, so a job whose
+     * worker failed or whose node died is picked up without waiting for a restart.
+     * Sweeps run on the worker thread, between jobs.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startSweeping() {
+        worker.scheduleWithFixedDelay(this::resumeStalledJobs, 0, sweepSeconds, TimeUnit.SECONDS);
+    }
+
+    private void resumeStalledJobs() {
+        // An exception would cancel the schedule, so a failed sweep only waits for the next one
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            for (BroadcastJob job : jobRepository.findStalled(now.minusSeconds(staleSeconds))) {
+                Integer taken = transactionTemplate.execute(status -> jobRepository.takeOver(job.getId(),
+                        job.getState(), job.getUpdatedAt(), nodeIdentity.getId(), now));
+                if (taken == null || taken == 0) {
+                    continue; // Resumed by another node in the meantime
+                }
+                log.info("Resuming broadcast {} from {} at sl_no {} ({} queued so far)", job.getId(),
+                        job.getNodeId(), job.getLastSlNo(), job.getQueued());
+                worker.execute(() -> run(job.getId()));
+            }
+        } catch (Exception e) {
+            log.error("Stalled broadcast sweep failed", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // A job cut short here is resumed from its last checkpoint by another node's sweep
+        worker.shutdownNow();
+    }
+
+    /**
+     * Render the message once, record the job and start queueing it.
+     */
+    public BroadcastJobResponse start(String subject, String body) {
+        LocalDateTime now = LocalDateTime.now();
+        BroadcastJob job = new BroadcastJob();
+        job.setSubject(subject);
+        job.setHtmlBody(emailService.customMessageHtml(subject, body));
+        job.setNodeId(nodeIdentity.getId());
+        job.setTotalRecipients((int) studentRepository.count());
+        job.setCreatedAt(now);
+        job.setUpdatedAt(now);
+        BroadcastJob saved = jobRepository.save(job);
+        log.info("Broadcast {} started for {} students", saved.getId(), saved.getTotalRecipients());
+
+        worker.execute(() -> run(saved.getId()));
+        return toResponse(saved);
+    }
+
+    public BroadcastJobResponse status(Long jobId) {
+        BroadcastJob job = jobRepository.findById(jobId)
+                .orElseThrow(() -> new RuntimeException("Broadcast job not found: " + jobId));
+        return toResponse(job);
+    }
+
+    private void run(Long jobId) {
+        try {
+            boolean more = true;
+            while (more && !Thread.currentThread().isInterrupted()) {
+                more = Boolean.TRUE.equals(transactionTemplate.execute(status -> queuePage(jobId, status)));
+            }
+        } catch (Exception e) {
+            // Left QUEUEING; the next sweep on any node picks it up once it goes stale
+            log.error("Broadcast {} stopped while queueing", jobId, e);
+        }
+    }
+
+    /**
+     * Queue the next page and checkpoint the job; returns whether there may be more.
+     * The checkpoint only applies if this node still owns the job and nobody else
+     * queued past the page it started from. Otherwise another node took the job
+     * over, so the page is rolled back and this run stops.
+     */
+    private boolean queuePage(Long jobId, TransactionStatus status) {
+        BroadcastJob job = jobRepository.findById(jobId).orElseThrow();
+        if (job.getState() != JobState.QUEUEING || !nodeIdentity.getId().equals(job.getNodeId())) {
+            log.info("Broadcast {} is no longer queueing on this node, stopping", jobId);
+            return false;
+        }
+        long lastSlNo = job.getLastSlNo() != null ? job.getLastSlNo() : 0L;
+        List<Object[]> page = studentRepository.findEmailsAfter(lastSlNo, PageRequest.of(0, pageSize));
+
+        Map<Long, String> recipients = new LinkedHashMap<>();
+        for (Object[] row : page) {
+            recipients.put((Long) row[0], (String) row[1]);
+        }
+        outbox.enqueueBroadcast(jobId, job.getSubject(), recipients);
+
+        LocalDateTime now = LocalDateTime.now();
+        long nextSlNo = page.isEmpty() ? lastSlNo : (Long) page.get(page.size() - 1)[0];
+        boolean done = page.size() < pageSize;
+        int updated = jobRepository.checkpoint(jobId, nodeIdentity.getId(), lastSlNo, nextSlNo,
+                recipients.size(), done ? JobState.QUEUED : JobState.QUEUEING, now);
+        if (updated == 0) {
+            status.setRollbackOnly();
+            log.warn("Broadcast {} was taken over by another node at sl_no {}, stopping", jobId, lastSlNo);
+            return false;
+        }
+        if (done) {
+            jobRepository.markQueued(jobId, now);
+            log.info("Broadcast {} queued for {} students", jobId, job.getQueued() + recipients.size());
+        }
+        return !done;
+    }
+
+    // Sent is derived rather than counted, so it stays right after sent rows are purged
+    private BroadcastJobResponse toResponse(BroadcastJob job) {
+        Map<OutboxStatus, Long> counts = outbox.broadcastCounts(job.getId());
+        long pending = counts.getOrDefault(OutboxStatus.PENDING, 0L);
+        long failed = counts.getOrDefault(OutboxStatus.FAILED, 0L);
+        long notQueued = job.getState() == JobState.QUEUED
+                ? 0 : Math.max(0, job.getTotalRecipients() - job.getQueued());
+        return new BroadcastJobResponse(job.getId(), job.getState().name(), job.getTotalRecipients(),
+                job.getQueued() - pending - failed, failed, pending + notQueued);
+    }
+}
@@ -0,0 +1,92 @@
+package com.college.attendance.service;
+
+import com.college.attendance.event.StudentChangedEvent;
+import com.college.attendance.event.StudentChangedEvent.Change;
+import com.college.attendance.service.EmailOutbox.CoalescedEmail;
+import com.college.attendance.service.EmailOutbox.OutboxEmail;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Gathers student changes for a short window and sends each student one email
+ * listing all of them, so a burst of admin edits does not become a burst of
+ * notifications. The first change queues an outbox row due after the window,
+ * inside the edit's transaction; later changes are merged into that row until
+ * the dispatcher claims it, so pending notices survive a crash.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ChangeNotificationCoalescer {
+
+    private static final TypeReference<List<Map<String, String>>> CHANGES_TYPE = new TypeReference<>() { };
+
+    private final EmailOutbox outbox;
+    private final EmailService emailService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.mail.change-coalesce-seconds:30}")
+    private long coalesceSeconds;
+
+    // Before commit, so the outbox row commits or rolls back with the edit
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onStudentChanged(StudentChangedEvent event) {
+        String coalesceKey = "changes:" + event.getSic();
+        Optional<CoalescedEmail> unsent = outbox.lockCoalesced(coalesceKey);
+
+        List<Change> changes = new ArrayList<>();
+        unsent.ifPresent(email -> changes.addAll(readChanges(email.getState())));
+        changes.addAll(event.getChanges());
+
+        // Goes to the student's address after the latest edit
+        OutboxEmail email = emailService.changeNotification(event.getEmail(), event.getSic(), changes);
+        if (unsent.isPresent()) {
+            outbox.updateCoalesced(unsent.get().getId(), writeChanges(changes), email);
+        } else {
+            outbox.enqueueCoalesced(coalesceKey, writeChanges(changes), email,
+                    LocalDateTime.now().plusSeconds(coalesceSeconds));
+        }
+        log.info("Change notification queued for SIC: {} - {} change(s)", event.getSic(), changes.size());
+    }
+
+    private String writeChanges(List<Change> changes) {
+        List<Map<String, String>> rows = new ArrayList<>(changes.size());
+        for (Change change : changes) {
+            Map<String, String> row = new LinkedHashMap<>();
+            row.put("type", change.getType());
+            row.put("details", change.getDetails());
+            rows.add(row);
+        }
+        try {
+            return objectMapper.writeValueAsString(rows);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot store change notification", e);
+        }
+    }
+
+    private List<Change> readChanges(String state) {
+        try {
+            List<Change> changes = new ArrayList<>();
+            for (Map<String, String> row : objectMapper.readValue(state, CHANGES_TYPE)) {
+                changes.add(new Change(row.get("type"), row.get("details")));
+            }
+            return changes;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read stored change notification", e);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.college.attendance.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consecutive-failure circuit breaker.
+ * After {@code failureThreshold} failures in a row the breaker opens and rejects
+ * calls. Once the open period expires a single probe is let through; a failed
+ * probe reopens the breaker with a doubled open period, up to a maximum.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long baseOpenNanos;
+    private final long maxOpenNanos;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openNanos;
+    private long openUntilNanos;
+    private boolean probeInFlight;
+
+    public CircuitBreaker(String name, int failureThreshold, long openSeconds, long maxOpenSeconds) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.baseOpenNanos = TimeUnit.SECONDS.toNanos(openSeconds);
+        this.maxOpenNanos = Math.max(baseOpenNanos, TimeUnit.SECONDS.toNanos(maxOpenSeconds));
+        this.openNanos = baseOpenNanos;
+    }
+
+    /**
+     * Returns {@code true} if a call may proceed.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() < openUntilNanos) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            probeInFlight = false;
+            log.info("Circuit {} half-open, probing", name);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probeInFlight) {
+                return false;
+            }
+            probeInFlight = true;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        if (state == State.HALF_OPEN) {
+            state = State.CLOSED;
+            openNanos = baseOpenNanos;
+            probeInFlight = false;
+            log.info("Circuit {} closed", name);
+        }
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+            openNanos = Math.min(maxOpenNanos, openNanos * 2);
+            open();
+        } else if (state == State.CLOSED && consecutiveFailures >= failureThreshold) {
+            open();
+        }
+    }
+
+    /**
+     * Give back a permit from {@link #tryAcquire()} that was never used for a call.
+     */
+    public synchronized void releaseUnused() {
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openUntilNanos = System.nanoTime() + openNanos;
+        log.warn("Circuit {} opened for {} s after {} consecutive failures",
+                name, TimeUnit.NANOSECONDS.toSeconds(openNanos), consecutiveFailures);
+    }
+}
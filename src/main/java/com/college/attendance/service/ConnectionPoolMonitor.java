@@ -0,0 +1,43 @@
+package com.college.attendance.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Logs Hikari pool usage around scheduler runs, so connection hold time can be
+ * compared with the hikaricp.* metrics exposed through the actuator.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ConnectionPoolMonitor {
+
+    private final DataSource dataSource;
+
+    public void logUsage(String context) {
+        HikariPoolMXBean pool = pool();
+        if (pool == null) {
+            return;
+        }
+        log.info("DB pool {}: active={}, idle={}, total={}, waiting={}", context,
+                pool.getActiveConnections(), pool.getIdleConnections(),
+                pool.getTotalConnections(), pool.getThreadsAwaitingConnection());
+    }
+
+    private HikariPoolMXBean pool() {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+            }
+        } catch (SQLException e) {
+            log.debug("Could not unwrap Hikari data source", e);
+        }
+        return null;
+    }
+}
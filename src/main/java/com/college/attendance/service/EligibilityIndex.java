@@ -0,0 +1,227 @@
+package com.college.attendance.service;
+
+import com.college.attendance.entity.Student;
+import com.college.attendance.entity.Student.StudentStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory eligibility index keyed by sl_no, so the scheduler can build its
+ * worklist with bitwise operations instead of a query per tick.
+ * It is loaded from the database at startup, on the first use of each new day
+ * and every {@code reload-minutes}, and kept current in between by this node's
+ * StudentService and scheduler. Edits and outcomes on other nodes only show up
+ * at the next reload, so the index is advisory: it decides what to queue, and
+ * the claim path re-checks every student against the database before marking.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EligibilityIndex {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.attendance.retry.max-attempts:5}")
+    private int maxAttempts;
+
+    // Bounds how long edits made on other nodes go unseen
+    @Value("${app.attendance.index.reload-minutes:15}")
+    private long reloadMinutes;
+
+    private final BitSet active = new BitSet();
+    private final BitSet paused = new BitSet();
+    private final BitSet takenToday = new BitSet();
+    private final BitSet verifiedToday = new BitSet();
+    private final BitSet exhaustedToday = new BitSet();
+
+    // Only paused students and students backing off today have entries here
+    private final Map<Integer, LocalDate> pausedUntil = new HashMap<>();
+    private final Map<Integer, LocalDateTime> nextAttemptAt = new HashMap<>();
+
+    private LocalDate loadedFor;
+    private long loadedAtNanos;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void start() {
+        reload(LocalDate.now());
+    }
+
+    /**
+     * The sl_nos to mark now as far as this node knows: (active OR pause expired)
+     * AND NOT (taken, out of attempts or backing off), in ascending order.
+     */
+    public synchronized List<Long> worklist(LocalDate today, LocalDateTime now) {
+        ensureLoaded(today);
+
+        BitSet eligible = (BitSet) active.clone();
+        for (int slNo = paused.nextSetBit(0); slNo >= 0; slNo = paused.nextSetBit(slNo + 1)) {
+            LocalDate until = pausedUntil.get(slNo);
+            if (until != null && !until.isAfter(today)) {
+                eligible.set(slNo);
+            }
+        }
+        eligible.andNot(takenToday);
+        eligible.andNot(exhaustedToday);
+        nextAttemptAt.forEach((slNo, at) -> {
+            if (at.isAfter(now)) {
+                eligible.clear(slNo);
+            }
+        });
+
+        List<Long> worklist = new ArrayList<>(eligible.cardinality());
+        for (int slNo = eligible.nextSetBit(0); slNo >= 0; slNo = eligible.nextSetBit(slNo + 1)) {
+            worklist.add((long) slNo);
+        }
+        return worklist;
+    }
+
+    // Reloads first if the index still holds an earlier day, so yesterday's bits never answer for today
+    public synchronized boolean isVerifiedToday(Long slNo, LocalDate today) {
+        ensureLoaded(today);
+        return verifiedToday.get(key(slNo));
+    }
+
+    public synchronized void studentSaved(Student student) {
+        int slNo = key(student.getSlNo());
+        active.set(slNo, student.getStatus() == StudentStatus.ACTIVE);
+        paused.set(slNo, student.getStatus() == StudentStatus.PAUSED);
+        if (student.getStatus() == StudentStatus.PAUSED && student.getPauseTill() != null) {
+            pausedUntil.put(slNo, student.getPauseTill());
+        } else {
+            pausedUntil.remove(slNo);
+        }
+    }
+
+    public synchronized void studentDeleted(Long slNo) {
+        int key = key(slNo);
+        active.clear(key);
+        paused.clear(key);
+        pausedUntil.remove(key);
+        clearToday(key);
+    }
+
+    /**
+     * Admin edit of today's taken/verified state. Clearing taken also clears the
+     * retry state, matching what StudentService writes to attendance_day.
+     */
+    public synchronized void todayChanged(Long slNo, LocalDate date, boolean taken, boolean verified) {
+        if (!date.equals(loadedFor)) {
+            return;
+        }
+        int key = key(slNo);
+        if (!taken) {
+            clearToday(key);
+        }
+        takenToday.set(key, taken);
+        verifiedToday.set(key, verified);
+    }
+
+    public synchronized void marked(Long slNo, LocalDate date) {
+        if (date.equals(loadedFor)) {
+            int key = key(slNo);
+            takenToday.set(key);
+            nextAttemptAt.remove(key);
+        }
+    }
+
+    public synchronized void verified(Long slNo, LocalDate date) {
+        if (date.equals(loadedFor)) {
+            verifiedToday.set(key(slNo));
+        }
+    }
+
+    public synchronized void failedAttempt(Long slNo, LocalDate date, int attempts, LocalDateTime retryAt) {
+        if (!date.equals(loadedFor)) {
+            return;
+        }
+        int key = key(slNo);
+        if (retryAt == null || attempts >= maxAttempts) {
+            exhaustedToday.set(key);
+            nextAttemptAt.remove(key);
+        } else {
+            nextAttemptAt.put(key, retryAt);
+        }
+    }
+
+    private void ensureLoaded(LocalDate today) {
+        if (!today.equals(loadedFor)
+                || System.nanoTime() - loadedAtNanos > TimeUnit.MINUTES.toNanos(reloadMinutes)) {
+            reload(today);
+        }
+    }
+
+    private synchronized void reload(LocalDate today) {
+        long startNanos = System.nanoTime();
+        active.clear();
+        paused.clear();
+        pausedUntil.clear();
+        takenToday.clear();
+        verifiedToday.clear();
+        exhaustedToday.clear();
+        nextAttemptAt.clear();
+
+        jdbcTemplate.query("SELECT sl_no, status, pause_till FROM students", rs -> {
+            int slNo = key(rs.getLong("sl_no"));
+            String status = rs.getString("status");
+            if (StudentStatus.ACTIVE.name().equals(status)) {
+                active.set(slNo);
+            } else if (StudentStatus.PAUSED.name().equals(status)) {
+                paused.set(slNo);
+                Date pauseTill = rs.getDate("pause_till");
+                if (pauseTill != null) {
+                    pausedUntil.put(slNo, pauseTill.toLocalDate());
+                }
+            }
+        });
+
+        jdbcTemplate.query("SELECT sl_no, marked_at, verified_at, mark_attempts, next_attempt_at " +
+                "FROM attendance_day WHERE attendance_date = ?", rs -> {
+            int slNo = key(rs.getLong("sl_no"));
+            takenToday.set(slNo, rs.getTimestamp("marked_at") != null);
+            verifiedToday.set(slNo, rs.getTimestamp("verified_at") != null);
+            int attempts = rs.getInt("mark_attempts");
+            Timestamp retryAt = rs.getTimestamp("next_attempt_at");
+            if (attempts >= maxAttempts) {
+                exhaustedToday.set(slNo);
+            } else if (retryAt != null) {
+                nextAttemptAt.put(slNo, retryAt.toLocalDateTime());
+            }
+        }, Date.valueOf(today));
+
+        loadedFor = today;
+        loadedAtNanos = System.nanoTime();
+        log.info("Eligibility index loaded for {}: {} active, {} paused, {} taken today in {} ms", today,
+                active.cardinality(), paused.cardinality(), takenToday.cardinality(),
+                (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    private void clearToday(int slNo) {
+        takenToday.clear(slNo);
+        verifiedToday.clear(slNo);
+        exhaustedToday.clear(slNo);
+        nextAttemptAt.remove(slNo);
+    }
+
+    private static int key(long slNo) {
+        return Math.toIntExact(slNo);
+    }
+}
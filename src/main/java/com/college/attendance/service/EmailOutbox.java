@@ -0,0 +1,301 @@
+package com.college.attendance.service;
+
+import com.college.attendance.entity.EmailOutboxMessage.OutboxStatus;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Durable outbox for notification emails in the email_outbox table.
+ * {@link #enqueue} joins the caller's transaction, so an email is stored if and
+ * only if the change it reports commits. {@link EmailOutboxDispatcher} claims
+ * due rows in batches with {@code FOR UPDATE SKIP LOCKED}, so several nodes can
+ * drain the outbox without sending an email twice.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EmailOutbox {
+
+    // %s selects broadcast rows or everything else, so notifications can be claimed first
+    private static final String CLAIM_SQL =
+            "SELECT id FROM email_outbox WHERE status = ? AND next_attempt_at <= ? " +
+            "AND (lease_until IS NULL OR lease_until < ?) AND broadcast_id %s " +
+            "ORDER BY next_attempt_at, id LIMIT ? FOR UPDATE SKIP LOCKED";
+    private static final String NOTIFICATION_CLAIM_SQL = String.format(CLAIM_SQL, "IS NULL");
+    private static final String BROADCAST_CLAIM_SQL = String.format(CLAIM_SQL, "IS NOT NULL");
+    private static final String LEASE_SQL =
+            "UPDATE email_outbox SET lease_owner = ?, lease_until = ? WHERE id = ?";
+    private static final String SENT_SQL =
+            "UPDATE email_outbox SET status = ?, sent_at = ?, attempts = attempts + 1, lease_owner = NULL, " +
+            "lease_until = NULL, last_error = NULL WHERE id = ?";
+    private static final String RETRY_SQL =
+            "UPDATE email_outbox SET status = ?, next_attempt_at = ?, attempts = attempts + 1, lease_owner = NULL, " +
+            "lease_until = NULL, last_error = ? WHERE id = ?";
+    private static final String RELEASE_SQL =
+            "UPDATE email_outbox SET lease_owner = NULL, lease_until = NULL WHERE id = ?";
+    // Unsent and not claimed by a dispatcher; waits for a concurrent claim to commit, then re-checks
+    private static final String LOCK_COALESCED_SQL =
+            "SELECT id, coalesced_state FROM email_outbox WHERE coalesce_key = ? AND status = ? " +
+            "AND (lease_until IS NULL OR lease_until < ?) ORDER BY id LIMIT 1 FOR UPDATE";
+    private static final String UPDATE_COALESCED_SQL =
+            "UPDATE email_outbox SET recipient = ?, subject = ?, html_body = ?, coalesced_state = ? WHERE id = ?";
+    private static final String INSERT_COALESCED_SQL =
+            "INSERT INTO email_outbox (coalesce_key, coalesced_state, recipient, subject, html_body, status, " +
+            "attempts, next_attempt_at, created_at) VALUES (?, ?, ?, ?, ?, ?, 0, ?, ?)";
+    private static final String CLEAR_DEDUPE_KEY_SQL =
+            "UPDATE email_outbox SET dedupe_key = NULL WHERE dedupe_key = ?";
+    private static final String DEPTH_SQL =
+            "SELECT COUNT(*) FROM email_outbox WHERE status = ?";
+    private static final String PURGE_SQL =
+            "DELETE FROM email_outbox WHERE status = ? AND sent_at < ?";
+    private static final String BROADCAST_COUNTS_SQL =
+            "SELECT status, COUNT(*) FROM email_outbox WHERE broadcast_id = ? GROUP BY status";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SqlDialect sqlDialect;
+    private final NodeIdentity nodeIdentity;
+
+    private String insertSql;
+    private String broadcastInsertSql;
+
+    // Set by the dispatcher so new mail is picked up right after commit instead of on the next poll
+    private volatile Runnable onEnqueue = () -> { };
+
+    @PostConstruct
+    public void init() {
+        // A duplicate dedupe key must not abort the caller's transaction
+        insertSql = sqlDialect.insertIgnoringDuplicates("INSERT INTO email_outbox (dedupe_key, recipient, " +
+                "subject, html_body, status, attempts, next_attempt_at, created_at) VALUES (?, ?, ?, ?, ?, 0, ?, ?)");
+        broadcastInsertSql = sqlDialect.insertIgnoringDuplicates("INSERT INTO email_outbox (dedupe_key, " +
+                "recipient, subject, html_body, status, attempts, next_attempt_at, created_at, broadcast_id) " +
+                "VALUES (?, ?, ?, '', ?, 0, ?, ?, ?)");
+    }
+
+    /**
+     * Store emails for sending. Runs in the caller's transaction if there is one;
+     * emails whose dedupe key is already in the outbox are skipped.
+     */
+    public void enqueue(List<OutboxEmail> emails) {
+        if (emails.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(emails.size());
+        for (OutboxEmail email : emails) {
+            rows.add(new Object[]{email.getDedupeKey(), email.getRecipient(), email.getSubject(), email.getHtml(),
+                    OutboxStatus.PENDING.name(), now, now});
+        }
+        jdbcTemplate.batchUpdate(insertSql, rows);
+
+        notifyAfterCommit();
+    }
+
+    public void enqueue(OutboxEmail email) {
+        enqueue(Collections.singletonList(email));
+    }
+
+    /**
+     * Store one page of a broadcast, keyed by sl_no. The rows carry no body of
+     * their own; the dispatcher sends the body stored on the broadcast job.
+     */
+    public void enqueueBroadcast(Long broadcastId, String subject, Map<Long, String> recipientsBySlNo) {
+        if (recipientsBySlNo.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(recipientsBySlNo.size());
+        recipientsBySlNo.forEach((slNo, recipient) -> rows.add(new Object[]{
+                "broadcast:" + broadcastId + ":" + slNo, recipient, subject, OutboxStatus.PENDING.name(), now, now,
+                broadcastId}));
+        jdbcTemplate.batchUpdate(broadcastInsertSql, rows);
+
+        notifyAfterCommit();
+    }
+
+    /**
+     * Lock the unsent email queued under {@code coalesceKey}, if any, so the
+     * caller can merge into it. Runs in the caller's transaction. An email a
+     * dispatcher has already claimed is not returned; the caller queues a new one.
+     */
+    public Optional<CoalescedEmail> lockCoalesced(String coalesceKey) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        return jdbcTemplate.query(LOCK_COALESCED_SQL,
+                (rs, rowNum) -> new CoalescedEmail(rs.getLong("id"), rs.getString("coalesced_state")),
+                coalesceKey, OutboxStatus.PENDING.name(), now).stream().findFirst();
+    }
+
+    /**
+     * Store an email that later emails with the same key are merged into until
+     * it is sent at {@code sendAt}. {@code state} is whatever the caller needs
+     * to render the merged email again. Runs in the caller's transaction.
+     */
+    public void enqueueCoalesced(String coalesceKey, String state, OutboxEmail email, LocalDateTime sendAt) {
+        jdbcTemplate.update(INSERT_COALESCED_SQL, coalesceKey, state, email.getRecipient(), email.getSubject(),
+                email.getHtml(), OutboxStatus.PENDING.name(), Timestamp.valueOf(sendAt),
+                Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    // Replace a locked coalesced email with its merged version; its send time is kept
+    public void updateCoalesced(Long id, String state, OutboxEmail email) {
+        jdbcTemplate.update(UPDATE_COALESCED_SQL, email.getRecipient(), email.getSubject(), email.getHtml(), state, id);
+    }
+
+    // Free dedupe keys so the same notification can be queued again; runs in the caller's transaction
+    public void clearDedupeKeys(List<String> dedupeKeys) {
+        List<Object[]> args = new ArrayList<>(dedupeKeys.size());
+        for (String dedupeKey : dedupeKeys) {
+            args.add(new Object[]{dedupeKey});
+        }
+        if (!args.isEmpty()) {
+            jdbcTemplate.batchUpdate(CLEAR_DEDUPE_KEY_SQL, args);
+        }
+    }
+
+    // Outbox rows of a broadcast by status; sent rows disappear once purged
+    public Map<OutboxStatus, Long> broadcastCounts(Long broadcastId) {
+        Map<OutboxStatus, Long> counts = new EnumMap<>(OutboxStatus.class);
+        jdbcTemplate.query(BROADCAST_COUNTS_SQL, rs -> {
+            counts.put(OutboxStatus.valueOf(rs.getString(1)), rs.getLong(2));
+        }, broadcastId);
+        return counts;
+    }
+
+    private void notifyAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    onEnqueue.run();
+                }
+            });
+        } else {
+            onEnqueue.run();
+        }
+    }
+
+    void onEnqueue(Runnable listener) {
+        onEnqueue = listener;
+    }
+
+    /**
+     * Claim up to {@code limit} due emails for this node under a lease, either
+     * broadcast rows or all other notifications. Rows claimed by another node
+     * are skipped, not waited on.
+     */
+    List<Long> claim(int limit, Duration lease, boolean broadcasts) {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp leaseUntil = Timestamp.valueOf(now.plus(lease));
+        return transactionTemplate.execute(status -> {
+            List<Long> ids = jdbcTemplate.queryForList(broadcasts ? BROADCAST_CLAIM_SQL : NOTIFICATION_CLAIM_SQL,
+                    Long.class, OutboxStatus.PENDING.name(),
+                    Timestamp.valueOf(now), Timestamp.valueOf(now), limit);
+            List<Object[]> leases = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                leases.add(new Object[]{nodeIdentity.getId(), leaseUntil, id});
+            }
+            if (!leases.isEmpty()) {
+                jdbcTemplate.batchUpdate(LEASE_SQL, leases);
+            }
+            return ids;
+        });
+    }
+
+    List<ClaimedEmail> load(List<Long> ids) {
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        // Broadcast rows take their body from the job
+        return jdbcTemplate.query("SELECT o.id, o.recipient, o.subject, o.attempts, " +
+                        "CASE WHEN o.broadcast_id IS NULL THEN o.html_body ELSE b.html_body END AS html_body " +
+                        "FROM email_outbox o LEFT JOIN broadcast_jobs b ON b.id = o.broadcast_id " +
+                        "WHERE o.id IN (" + placeholders + ")",
+                (rs, rowNum) -> new ClaimedEmail(rs.getLong("id"), rs.getString("recipient"),
+                        rs.getString("subject"), rs.getString("html_body"), rs.getInt("attempts")),
+                ids.toArray());
+    }
+
+    void markSent(List<Long> ids, LocalDateTime sentAt) {
+        List<Object[]> args = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            args.add(new Object[]{OutboxStatus.SENT.name(), Timestamp.valueOf(sentAt), id});
+        }
+        if (!args.isEmpty()) {
+            jdbcTemplate.batchUpdate(SENT_SQL, args);
+        }
+    }
+
+    // Hand claimed emails back unsent without using up an attempt
+    void release(List<Long> ids) {
+        List<Object[]> args = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            args.add(new Object[]{id});
+        }
+        if (!args.isEmpty()) {
+            jdbcTemplate.batchUpdate(RELEASE_SQL, args);
+        }
+    }
+
+    // A null retry time marks the email as permanently FAILED
+    void markFailed(Long id, LocalDateTime retryAt, String error) {
+        String status = retryAt != null ? OutboxStatus.PENDING.name() : OutboxStatus.FAILED.name();
+        Timestamp nextAttemptAt = Timestamp.valueOf(retryAt != null ? retryAt : LocalDateTime.now());
+        String lastError = error != null && error.length() > 500 ? error.substring(0, 500) : error;
+        jdbcTemplate.update(RETRY_SQL, status, nextAttemptAt, lastError, id);
+    }
+
+    long depth() {
+        Long count = jdbcTemplate.queryForObject(DEPTH_SQL, Long.class, OutboxStatus.PENDING.name());
+        return count != null ? count : 0;
+    }
+
+    int purgeSentBefore(LocalDateTime cutoff) {
+        return jdbcTemplate.update(PURGE_SQL, OutboxStatus.SENT.name(), Timestamp.valueOf(cutoff));
+    }
+
+    /**
+     * A rendered email. The dedupe key is null for emails that may legitimately
+     * repeat, such as admin messages.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class OutboxEmail {
+        private final String dedupeKey;
+        private final String recipient;
+        private final String subject;
+        private final String html;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class CoalescedEmail {
+        private final Long id;
+        private final String state;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    static class ClaimedEmail {
+        private final Long id;
+        private final String recipient;
+        private final String subject;
+        private final String html;
+        private final int attempts;
+    }
+}
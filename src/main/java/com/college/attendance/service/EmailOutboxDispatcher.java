@@ -0,0 +1,262 @@
+package com.college.attendance.service;
+
+import com.college.attendance.service.EmailOutbox.ClaimedEmail;
+import com.college.attendance.service.SmtpRateGovernor.Lane;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the email outbox on its own thread, off the request and scheduler
+ * threads. Each claimed batch goes out in one {@code JavaMailSender.send} call,
+ * which sends all of it over a single SMTP connection. Failed emails are
+ * retried with exponential backoff until the attempt budget runs out.
+ * Notifications are claimed ahead of broadcast rows, and every message waits
+ * for a token from {@link SmtpRateGovernor} in its lane before it goes out.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EmailOutboxDispatcher {
+
+    private final EmailOutbox outbox;
+    private final JavaMailSender mailSender;
+    private final SmtpRateGovernor rateGovernor;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${spring.mail.username}")
+    private String fromEmail;
+
+    @Value("${app.mail.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.mail.outbox.poll-seconds:10}")
+    private int pollSeconds;
+
+    @Value("${app.mail.outbox.lease-seconds:300}")
+    private long leaseSeconds;
+
+    @Value("${app.mail.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.mail.outbox.retry-base-seconds:30}")
+    private long retryBaseSeconds;
+
+    @Value("${app.mail.outbox.retry-max-seconds:3600}")
+    private long retryMaxSeconds;
+
+    @Value("${app.mail.outbox.retention-days:7}")
+    private int retentionDays;
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "email-outbox");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicBoolean wakeQueued = new AtomicBoolean();
+    private final AtomicLong depth = new AtomicLong();
+
+    private Timer sendTimer;
+    private Counter sentEmails;
+    private Counter retriedEmails;
+    private Counter failedEmails;
+    private LocalDateTime lastPurge = LocalDateTime.MIN;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Gauge.builder("attendance.mail.outbox.depth", depth, AtomicLong::get)
+                .description("Emails waiting in the outbox")
+                .register(meterRegistry);
+        sendTimer = Timer.builder("attendance.mail.send.latency")
+                .description("Time to send one outbox batch over a single SMTP connection")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        sentEmails = Counter.builder("attendance.mail.outbox.sent")
+                .description("Outbox emails sent")
+                .register(meterRegistry);
+        retriedEmails = Counter.builder("attendance.mail.outbox.retried")
+                .description("Outbox email sends that failed and were rescheduled")
+                .register(meterRegistry);
+        failedEmails = Counter.builder("attendance.mail.outbox.failed")
+                .description("Outbox emails given up on after the last attempt")
+                .register(meterRegistry);
+
+        outbox.onEnqueue(this::wake);
+        timer.scheduleWithFixedDelay(this::drain, 0, pollSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Unsent claims go back to the outbox when their lease expires
+        timer.shutdown();
+    }
+
+    // Coalesces wake-ups from a burst of commits into one extra drain
+    private void wake() {
+        if (wakeQueued.compareAndSet(false, true)) {
+            timer.execute(() -> {
+                wakeQueued.set(false);
+                drain();
+            });
+        }
+    }
+
+    private void drain() {
+        try {
+            while (true) {
+                Lane lane = Lane.ATTENDANCE;
+                List<Long> ids = outbox.claim(batchSize, Duration.ofSeconds(leaseSeconds), false);
+                if (ids.isEmpty()) {
+                    lane = Lane.BROADCAST;
+                    ids = outbox.claim(batchSize, Duration.ofSeconds(leaseSeconds), true);
+                }
+                if (ids.isEmpty() || !send(outbox.load(ids), lane)) {
+                    break; // Drained, or out of quota until the next poll
+                }
+            }
+            depth.set(outbox.depth());
+
+            if (lastPurge.isBefore(LocalDateTime.now().minusHours(1))) {
+                int purged = outbox.purgeSentBefore(LocalDateTime.now().minusDays(retentionDays));
+                if (purged > 0) {
+                    log.info("Purged {} sent emails from the outbox", purged);
+                }
+                lastPurge = LocalDateTime.now();
+            }
+        } catch (InterruptedException e) {
+            // Shutting down; claimed rows go back to the outbox when their lease expires
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Error draining email outbox", e);
+        }
+    }
+
+    // Returns false if some emails had to be handed back for lack of sending quota
+    private boolean send(List<ClaimedEmail> emails, Lane lane) throws InterruptedException {
+        Map<MimeMessage, ClaimedEmail> messages = new IdentityHashMap<>();
+        for (ClaimedEmail email : emails) {
+            try {
+                messages.put(toMimeMessage(email), email);
+            } catch (MessagingException e) {
+                // A message that cannot be built will not build on retry either
+                log.error("Dropping outbox email {} to {}: {}", email.getId(), email.getRecipient(), e.getMessage());
+                outbox.markFailed(email.getId(), null, e.getMessage());
+                failedEmails.increment();
+            }
+        }
+        boolean withinQuota = acquireQuota(messages, lane);
+        if (messages.isEmpty()) {
+            return withinQuota;
+        }
+
+        Map<Object, Exception> failures = new IdentityHashMap<>();
+        long startNanos = System.nanoTime();
+        try {
+            mailSender.send(messages.keySet().toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            failures.putAll(e.getFailedMessages());
+            if (failures.isEmpty()) {
+                messages.keySet().forEach(message -> failures.put(message, e));
+            }
+        } catch (MailException e) {
+            messages.keySet().forEach(message -> failures.put(message, e));
+        }
+        sendTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+
+        List<Long> sent = new ArrayList<>(messages.size());
+        messages.forEach((message, email) -> {
+            Exception failure = failures.get(message);
+            if (failure == null) {
+                sent.add(email.getId());
+            } else {
+                reschedule(email, failure);
+            }
+        });
+        outbox.markSent(sent, LocalDateTime.now());
+        sentEmails.increment(sent.size());
+        log.info("Sent {} of {} outbox emails", sent.size(), messages.size());
+        return withinQuota;
+    }
+
+    /**
+     * Take a sending token for each message. Waiting is capped at half the lease
+     * so claimed rows are never held past it; messages left without a token are
+     * released to the outbox and dropped from {@code messages}.
+     */
+    private boolean acquireQuota(Map<MimeMessage, ClaimedEmail> messages, Lane lane) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(leaseSeconds) / 2;
+        List<Long> released = new ArrayList<>();
+        Iterator<ClaimedEmail> iterator = messages.values().iterator();
+        while (iterator.hasNext()) {
+            ClaimedEmail email = iterator.next();
+            if (released.isEmpty() && rateGovernor.acquire(lane,
+                    Duration.ofNanos(Math.max(0, deadline - System.nanoTime())))) {
+                continue;
+            }
+            released.add(email.getId());
+            iterator.remove();
+        }
+        if (released.isEmpty()) {
+            return true;
+        }
+        outbox.release(released);
+        log.warn("Sending quota exhausted, returned {} {} emails to the outbox", released.size(),
+                lane.name().toLowerCase());
+        return false;
+    }
+
+    private void reschedule(ClaimedEmail email, Exception failure) {
+        int attempts = email.getAttempts() + 1;
+        if (attempts >= maxAttempts) {
+            log.error("Giving up on outbox email {} to {} after {} attempts", email.getId(), email.getRecipient(),
+                    attempts, failure);
+            outbox.markFailed(email.getId(), null, failure.getMessage());
+            failedEmails.increment();
+            return;
+        }
+        long backoffSeconds = Math.min(retryMaxSeconds, retryBaseSeconds << Math.min(attempts - 1, 20));
+        LocalDateTime retryAt = LocalDateTime.now().plusSeconds(backoffSeconds);
+        log.warn("Failed to send outbox email {} to {} (attempt {} of {}), retrying at {}: {}", email.getId(),
+                email.getRecipient(), attempts, maxAttempts, retryAt, failure.getMessage());
+        outbox.markFailed(email.getId(), retryAt, failure.getMessage());
+        retriedEmails.increment();
+    }
+
+    private MimeMessage toMimeMessage(ClaimedEmail email) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        helper.setFrom(fromEmail);
+        helper.setTo(email.getRecipient());
+        helper.setSubject(email.getSubject());
+        helper.setText(email.getHtml(), true);
+        return message;
+    }
+}
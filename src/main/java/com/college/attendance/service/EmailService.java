@@ -1,33 +1,32 @@
 package com.college.attendance.service;
 
+import com.college.attendance.event.StudentChangedEvent.Change;
+import com.college.attendance.service.EmailOutbox.OutboxEmail;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EmailService {
 
-    private final JavaMailSender mailSender;
-
-    @Value("${spring.mail.username}")
-    private String fromEmail;
+    private final EmailOutbox outbox;
     
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy hh:mm a");
+    private static final DateTimeFormatter DAY_FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+
+    private static final List<String> ATTENDANCE_EMAIL_TYPES =
+            List.of("MARKED", "VERIFIED", "MARK_FAILED", "VERIFY_FAILED");
     
-    /**
-     * Get disclaimer HTML for all emails
-     */
-    private String getDisclaimerHtml() {
-        return "<div style='background: rgba(239, 68, 68, 0.1); border: 2px solid rgba(239, 68, 68, 0.3); border-radius: 12px; padding: 20px; margin: 24px 0;'>" +
+    // Disclaimer shown in every email; inlined into the templates' static segments
+    static final String DISCLAIMER_HTML =
+               "<div style='background: rgba(239, 68, 68, 0.1); border: 2px solid rgba(239, 68, 68, 0.3); border-radius: 12px; padding: 20px; margin: 24px 0;'>" +
                "  <div style='text-align: center; margin-bottom: 16px;'>" +
                "    <div style='font-size: 32px; margin-bottom: 8px;'>⚠</div>" +
                "    <h2 style='margin: 0; color: #ef4444; font-size: 18px; font-weight: 700; text-transform: uppercase; letter-spacing: 1px;'>IMPORTANT LEGAL NOTICE</h2>" +
@@ -48,289 +47,317 @@ public class EmailService {
                "    <p style='margin: 12px 0 0; color: rgba(255, 255, 255, 0.75); font-size: 11px; font-style: italic;'>For complete terms, visit the registration page.</p>" +
                "  </div>" +
                "</div>";
-    }
 
+    private static final String STUDENT_ROW =
+        "  <div style='display: flex; align-items: center; margin-bottom: 12px;'>" +
+        "    <span style='font-size: 24px; margin-right: 12px;'>●</span>" +
+        "    <div>" +
+        "      <div style='font-size: 11px; color: rgba(255, 255, 255, 0.5); text-transform: uppercase; letter-spacing: 0.5px; font-weight: 600; margin-bottom: 4px;'>Student ID (SIC)</div>" +
+        "      <div style='font-size: 16px; font-weight: 600; color: rgba(255, 255, 255, 0.95);'>{{sic}}</div>" +
+        "    </div>" +
+        "  </div>";
 
-    
-    public void sendAttendanceConfirmation(String toEmail, String sic, boolean isVerification) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            
-            helper.setFrom(fromEmail);
-            helper.setTo(toEmail);
-            
-            String subject = isVerification ? 
-                "✓ Attendance Verification Successful - " + sic : 
-                "✓ Attendance Marked Successfully - " + sic;
-            helper.setSubject(subject);
-            
-            String content = isVerification ?
-                "<p style='margin: 0 0 16px; color: rgba(255, 255, 255, 0.95); font-size: 16px; line-height: 1.6;'>" +
-                "Your hostel attendance has been <strong style='color: #22c55e;'>verified successfully</strong>.</p>" +
-                getDisclaimerHtml() :
-                "<p style='margin: 0 0 16px; color: rgba(255, 255, 255, 0.95); font-size: 16px; line-height: 1.6;'>" +
-                "Your hostel attendance has been <strong style='color: #22c55e;'>marked successfully</strong>.</p>" +
-                getDisclaimerHtml();
-            
-            String details = 
-                "<div style='margin-bottom: 16px;'>" +
-                "  <div style='display: flex; align-items: center; margin-bottom: 12px;'>" +
-                "    <span style='font-size: 24px; margin-right: 12px;'>●</span>" +
-                "    <div>" +
-                "      <div style='font-size: 11px; color: rgba(255, 255, 255, 0.5); text-transform: uppercase; letter-spacing: 0.5px; font-weight: 600; margin-bottom: 4px;'>Student ID (SIC)</div>" +
-                "      <div style='font-size: 16px; font-weight: 600; color: rgba(255, 255, 255, 0.95);'>" + sic + "</div>" +
-                "    </div>" +
-                "  </div>" +
-                "  <div style='display: flex; align-items: center; margin-bottom: 12px;'>" +
-                "    <span style='font-size: 24px; margin-right: 12px;'>⏱</span>" +
-                "    <div>" +
-                "      <div style='font-size: 11px; color: rgba(255, 255, 255, 0.5); text-transform: uppercase; letter-spacing: 0.5px; font-weight: 600; margin-bottom: 4px;'>" + 
-                (isVerification ? "Verification Time" : "Attendance Time") + "</div>" +
-                "      <div style='font-size: 16px; font-weight: 600; color: rgba(255, 255, 255, 0.95);'>" + LocalDateTime.now().format(DATE_FORMATTER) + "</div>" +
-                "    </div>" +
-                "  </div>" +
-                "  <div style='display: flex; align-items: center;'>" +
-                "    <span style='font-size: 24px; margin-right: 12px;'>✓</span>" +
-                "    <div>" +
-                "      <div style='font-size: 11px; color: rgba(255, 255, 255, 0.5); text-transform: uppercase; letter-spacing: 0.5px; font-weight: 600; margin-bottom: 4px;'>Status</div>" +
-                "      <div style='display: inline-block; padding: 6px 12px; border-radius: 8px; font-size: 12px; font-weight: 700; text-transform: uppercase; background: rgba(34, 197, 94, 0.2); color: #22c55e;'>Confirmed</div>" +
-                "    </div>" +
-                "  </div>" +
-                "</div>";
-            
-            String additionalMessage = isVerification ?
-                "This is a verification check to ensure your attendance was recorded properly. Your attendance is now fully confirmed." :
-                "A verification check will be performed shortly to confirm your attendance. You will receive another confirmation email once verified.";
-            
-            String htmlContent = buildEmailTemplate(subject, content, details, additionalMessage);
-            helper.setText(htmlContent, true);
-            
-            mailSender.send(message);
-            log.info("HTML email sent successfully to {} for SIC: {}", toEmail, sic);
-        } catch (MessagingException e) {
-            log.error("Failed to send HTML email to {} for SIC: {}", toEmail, sic, e);
-        }
+    private static final EmailTemplate ATTENDANCE_CONFIRMATION_CONTENT = EmailTemplate.compile(
+        "<p style='margin: 0 0 16px; color: rgba(255, 255, 255, 0.95); font-size: 16px; line-height: 1.6;'>" +
+        "Your hostel attendance has been <strong style='color: #22c55e;'>{{outcome}} successfully</strong>.</p>" +
+        DISCLAIMER_HTML,
+        "outcome");
+
+    private static final EmailTemplate ATTENDANCE_CONFIRMATION_DETAILS = EmailTemplate.compile(
+        "<div style='margin-bottom: 16px;'>" +
+        STUDENT_ROW +
+        "  <div style='display: flex; align-items: center; margin-bottom: 12px;'>" +
+        "    <span style='font-size: 24px; margin-right: 12px;'>⏱</span>" +
+        "    <div>" +
+        "      <div style='font-size: 11px; color: rgba(255, 255, 255, 0.5); text-transform: uppercase; letter-spacing: 0.5px; font-weight: 600; margin-bottom: 4px;'>{{timeLabel}}</div>" +
+        "      <div style='font-size: 16px; font-weight: 600; color: rgba(255, 255, 255, 0.95);'>{{time}}</div>" +
+        "    </div>" +
+        "  </div>" +
+        "  <div style='display: flex; align-items: center;'>" +
+        "    <span style='font-size: 24px; margin-right: 12px;'>✓</span>" +
+        "    <div>" +
+        "      <div style='font-size: 11px; color: rgba(255, 255, 255, 0.5); text-transform: uppercase; letter-spacing: 0.5px; font-weight: 600; margin-bottom: 4px;'>Status</div>" +
+        "      <div style='display: inline-block; padding: 6px 12px; border-radius: 8px; font-size: 12px; font-weight: 700; text-transform: uppercase; background: rgba(34, 197, 94, 0.2); color: #22c55e;'>Confirmed</div>" +
+        "    </div>" +
+        "  </div>" +
+        "</div>",
+        "sic", "timeLabel", "time");
+
+    private static final EmailTemplate ATTENDANCE_FAILURE_CONTENT = EmailTemplate.compile(
+        "<p style='margin: 0 0 16px; color: rgba(255, 255, 255, 0.95); font-size: 16px; line-height: 1.6;'>" +
+        "We were unable to mark your hostel attendance {{what}}. " +
+        "<strong style='color: #ef4444;'>Please try again or contact the hostel administration.</strong></p>" +
+        DISCLAIMER_HTML,
+        "what");
+
+    private static final EmailTemplate ATTENDANCE_FAILURE_DETAILS = EmailTemplate.compile(
+        "<div style='margin-bottom: 16px;'>" +
+        STUDENT_ROW +
+        "  <div style='display: flex; align-items: center; margin-bottom: 12px;'>" +
+        "    <span style='font-size: 24px; margin-right: 12px;'>⏱</span>" +
+        "    <div>" +
+        "      <div style='font-size: 11px; color: rgba(255, 255, 255, 0.5); text-transform: uppercase; letter-spacing: 0.5px; font-weight: 600; margin-bottom: 4px;'>Attempted Time</div>" +
+        "      <div style='font-size: 16px; font-weight: 600; color: rgba(255, 255, 255, 0.95);'>{{time}}</div>" +
+        "    </div>" +
+        "  </div>" +
+        "  <div style='display: flex; align-items: center;'>" +
+        "    <span style='font-size: 24px; margin-right: 12px;'>X</span>" +
+        "    <div>" +
+        "      <div style='font-size: 11px; color: rgba(255, 255, 255, 0.5); text-transform: uppercase; letter-spacing: 0.5px; font-weight: 600; margin-bottom: 4px;'>Status</div>" +
+        "      <div style='display: inline-block; padding: 6px 12px; border-radius: 8px; font-size: 12px; font-weight: 700; text-transform: uppercase; background: rgba(239, 68, 68, 0.2); color: #ef4444;'>Failed</div>" +
+        "    </div>" +
+        "  </div>" +
+        "</div>",
+        "sic", "time");
+
+    private static final EmailTemplate CHANGE_CONTENT = EmailTemplate.compile(
+        "<p style='margin: 0 0 16px; color: rgba(255, 255, 255, 0.95); font-size: 16px; line-height: 1.6;'>" +
+        "This is to notify you that a change has been made to your account. " +
+        "<strong style='color: #f59e0b;'>Please review the details below.</strong></p>" +
+        DISCLAIMER_HTML);
+
+    private static final EmailTemplate CHANGE_ROW = EmailTemplate.compile(
+        "  <div style='display: flex; align-items: center; margin-bottom: 12px;'>" +
+        "    <span style='font-size: 24px; margin-right: 12px;'>⟳</span>" +
+        "    <div>" +
+        "      <div style='font-size: 11px; color: rgba(255, 255, 255, 0.5); text-transform: uppercase; letter-spacing: 0.5px; font-weight: 600; margin-bottom: 4px;'>Change Type</div>" +
+        "      <div style='font-size: 16px; font-weight: 600; color: rgba(255, 255, 255, 0.95);'>{{changeType}}</div>" +
+        "    </div>" +
+        "  </div>" +
+        "  <div style='display: flex; align-items: center; margin-bottom: 12px;'>" +
+        "    <span style='font-size: 24px; margin-right: 12px;'>✎</span>" +
+        "    <div>" +
+        "      <div style='font-size: 11px; color: rgba(255, 255, 255, 0.5); text-transform: uppercase; letter-spacing: 0.5px; font-weight: 600; margin-bottom: 4px;'>Details</div>" +
+        "      <div style='font-size: 16px; font-weight: 600; color: rgba(255, 255, 255, 0.95);'>{{changeDetails}}</div>" +
+        "    </div>" +
+        "  </div>",
+        "changeType", "changeDetails");
+
+    // One CHANGE_ROW per change, rendered by the caller
+    private static final EmailTemplate CHANGE_DETAILS = EmailTemplate.compile(
+        "<div style='margin-bottom: 16px;'>" +
+        STUDENT_ROW +
+        "{{{changes}}}" +
+        "  <div style='display: flex; align-items: center;'>" +
+        "    <span style='font-size: 24px; margin-right: 12px;'>⏱</span>" +
+        "    <div>" +
+        "      <div style='font-size: 11px; color: rgba(255, 255, 255, 0.5); text-transform: uppercase; letter-spacing: 0.5px; font-weight: 600; margin-bottom: 4px;'>Time</div>" +
+        "      <div style='font-size: 16px; font-weight: 600; color: rgba(255, 255, 255, 0.95);'>{{time}}</div>" +
+        "    </div>" +
+        "  </div>" +
+        "</div>",
+        "sic", "changes", "time");
+
+    private static final EmailTemplate CHANGE_ADDITIONAL_MESSAGE = EmailTemplate.compile(
+        "<strong style='color: #f59e0b;'>⚠ Important:</strong> If you did not make this change or if this was done by mistake, please login immediately and update your information, or contact the administrator.");
+
+    private static final EmailTemplate REACTIVATION_CONTENT = EmailTemplate.compile(
+        "<p style='margin: 0 0 16px; color: rgba(255, 255, 255, 0.95); font-size: 16px; line-height: 1.6;'>" +
+        "Your attendance pause ended on {{date}}. " +
+        "<strong style='color: #22c55e;'>Automatic attendance marking has resumed.</strong></p>" +
+        DISCLAIMER_HTML,
+        "date");
+
+    private static final EmailTemplate REACTIVATION_DETAILS = EmailTemplate.compile(
+        "<div style='margin-bottom: 16px;'>" +
+        STUDENT_ROW +
+        "  <div style='display: flex; align-items: center;'>" +
+        "    <span style='font-size: 24px; margin-right: 12px;'>✓</span>" +
+        "    <div>" +
+        "      <div style='font-size: 11px; color: rgba(255, 255, 255, 0.5); text-transform: uppercase; letter-spacing: 0.5px; font-weight: 600; margin-bottom: 4px;'>Status</div>" +
+        "      <div style='display: inline-block; padding: 6px 12px; border-radius: 8px; font-size: 12px; font-weight: 700; text-transform: uppercase; background: rgba(34, 197, 94, 0.2); color: #22c55e;'>Active</div>" +
+        "    </div>" +
+        "  </div>" +
+        "</div>",
+        "sic");
+
+    // The body is escaped by the caller, which then turns line breaks into <br>
+    private static final EmailTemplate CUSTOM_CONTENT = EmailTemplate.compile(
+        "<p style='margin: 0 0 16px; color: rgba(255, 255, 255, 0.95); font-size: 16px; line-height: 1.6;'>" +
+        "{{{body}}}</p>" +
+        DISCLAIMER_HTML,
+        "body");
+
+    private static final EmailTemplate CUSTOM_DETAILS = EmailTemplate.compile(
+        "<div style='padding: 16px; background: rgba(99, 102, 241, 0.1); border-radius: 12px; border: 1px solid rgba(99, 102, 241, 0.3);'>" +
+        "  <div style='display: flex; align-items: center;'>" +
+        "    <span style='font-size: 24px; margin-right: 12px;'>●</span>" +
+        "    <div style='font-size: 14px; color: rgba(255, 255, 255, 0.75); font-style: italic;'>" +
+        "      This message was sent from the Hostel Attendance System Admin Panel" +
+        "    </div>" +
+        "  </div>" +
+        "</div>");
+
+    // Content, details and the additional message are markup supplied by this class
+    private static final EmailTemplate LAYOUT = EmailTemplate.compile(
+        "<!DOCTYPE html>" +
+        "<html lang='en'>" +
+        "<head>" +
+        "  <meta charset='UTF-8'>" +
+        "  <meta name='viewport' content='width=device-width, initial-scale=1.0'>" +
+        "  <title>{{subject}}</title>" +
+        "</head>" +
+        "<body style='margin: 0; padding: 0; font-family: Inter, -apple-system, BlinkMacSystemFont, Segoe UI, Roboto, sans-serif; background: linear-gradient(135deg, #0f0c29 0%, #302b63 50%, #24243e 100%); min-height: 100vh;'>" +
+        "  <table role='presentation' cellspacing='0' cellpadding='0' border='0' width='100%' style='background: linear-gradient(135deg, #0f0c29 0%, #302b63 50%, #24243e 100%); padding: 40px 20px;'>" +
+        "    <tr>" +
+        "      <td align='center'>" +
+        "        <table role='presentation' cellspacing='0' cellpadding='0' border='0' width='600' style='max-width: 600px; background: rgba(255, 255, 255, 0.05); backdrop-filter: blur(20px); border: 1px solid rgba(255, 255, 255, 0.1); border-radius: 24px; overflow: hidden; box-shadow: 0 8px 32px rgba(0, 0, 0, 0.5);'>" +
+        "          <tr>" +
+        "            <td style='background: linear-gradient(135deg, rgba(102, 126, 234, 0.2) 0%, rgba(118, 75, 162, 0.2) 100%); padding: 40px 40px 30px; text-align: center; border-bottom: 1px solid rgba(255, 255, 255, 0.1);'>" +
+        "              <div style='font-size: 64px; margin-bottom: 16px;'>•</div>" +
+        "              <h1 style='margin: 0 0 8px; font-size: 28px; font-weight: 800; color: #fff;'>Attendance Automation</h1>" +
+        "              <p style='margin: 0; color: rgba(255, 255, 255, 0.8); font-size: 14px; font-weight: 400;'>College Hostel Attendance System</p>" +
+        "            </td>" +
+        "          </tr>" +
+        "          <tr>" +
+        "            <td style='padding: 40px;'>" +
+        "              <p style='margin: 0 0 24px; color: rgba(255, 255, 255, 0.95); font-size: 16px; line-height: 1.6;'>Dear Student,</p>" +
+        "              <div style='margin-bottom: 32px;'>{{{content}}}</div>" +
+        "              <table role='presentation' cellspacing='0' cellpadding='0' border='0' width='100%' style='background: rgba(255, 255, 255, 0.03); border: 1px solid rgba(255, 255, 255, 0.1); border-radius: 16px; margin-bottom: 32px;'>" +
+        "                <tr><td style='padding: 24px;'>{{{details}}}</td></tr>" +
+        "              </table>" +
+        "              <p style='margin: 0 0 24px; color: rgba(255, 255, 255, 0.75); font-size: 15px; line-height: 1.6;'>{{{additionalMessage}}}</p>" +
+        "              <div style='margin-top: 40px; padding-top: 24px; border-top: 1px solid rgba(255, 255, 255, 0.1);'>" +
+        "                <p style='margin: 0 0 8px; color: rgba(255, 255, 255, 0.95); font-size: 15px; font-weight: 600;'>Best regards,</p>" +
+        "                <p style='margin: 0; color: rgba(255, 255, 255, 0.75); font-size: 15px;'>Hostel Attendance System</p>" +
+        "              </div>" +
+        "            </td>" +
+        "          </tr>" +
+        "          <tr>" +
+        "            <td style='background: rgba(0, 0, 0, 0.2); padding: 24px 40px; text-align: center; border-top: 1px solid rgba(255, 255, 255, 0.1);'>" +
+        "              <table role='presentation' cellspacing='0' cellpadding='0' border='0' width='100%' style='margin-bottom: 20px;'>" +
+        "                <tr>" +
+        "                  <td align='center'>" +
+        "                    <table role='presentation' cellspacing='0' cellpadding='0' border='0'>" +
+        "                      <tr>" +
+        "                        <td style='padding: 8px 12px; background: rgba(255, 255, 255, 0.05); border: 1px solid rgba(255, 255, 255, 0.1); border-radius: 50px; margin: 0 4px;'>" +
+        "                          <span style='color: rgba(255, 255, 255, 0.9); font-size: 12px;'>Auto Mark Daily</span>" +
+        "                        </td>" +
+        "                        <td style='padding: 8px 12px; background: rgba(255, 255, 255, 0.05); border: 1px solid rgba(255, 255, 255, 0.1); border-radius: 50px; margin: 0 4px;'>" +
+        "                          <span style='color: rgba(255, 255, 255, 0.9); font-size: 12px;'>Verified</span>" +
+        "                        </td>" +
+        "                        <td style='padding: 8px 12px; background: rgba(255, 255, 255, 0.05); border: 1px solid rgba(255, 255, 255, 0.1); border-radius: 50px; margin: 0 4px;'>" +
+        "                          <span style='color: rgba(255, 255, 255, 0.9); font-size: 12px;'>Secure</span>" +
+        "                        </td>" +
+        "                      </tr>" +
+        "                    </table>" +
+        "                  </td>" +
+        "                </tr>" +
+        "              </table>" +
+        "              <p style='margin: 0; color: rgba(255, 255, 255, 0.5); font-size: 12px;'>© {{year}} College Attendance Automation. All rights reserved.</p>" +
+        "              <p style='margin: 12px 0 0; color: rgba(255, 255, 255, 0.4); font-size: 11px; line-height: 1.5;'>This is an automated message. Please do not reply to this email.</p>" +
+        "            </td>" +
+        "          </tr>" +
+        "        </table>" +
+        "      </td>" +
+        "    </tr>" +
+        "  </table>" +
+        "</body>" +
+        "</html>",
+        "subject", "content", "details", "additionalMessage", "year");
+
+    /**
+     * Render an attendance email. The scheduler stores it through the result sink
+     * so it commits together with the outcome it reports.
+     */
+    public OutboxEmail attendanceConfirmation(String toEmail, String sic, boolean isVerification) {
+        String subject = isVerification ? 
+            "✓ Attendance Verification Successful - " + sic : 
+            "✓ Attendance Marked Successfully - " + sic;
+        
+        String additionalMessage = isVerification ?
+            "This is a verification check to ensure your attendance was recorded properly. Your attendance is now fully confirmed." :
+            "A verification check will be performed shortly to confirm your attendance. You will receive another confirmation email once verified.";
+        
+        String html = render(subject,
+                ATTENDANCE_CONFIRMATION_CONTENT.with(isVerification ? "verified" : "marked"),
+                ATTENDANCE_CONFIRMATION_DETAILS.with(sic, isVerification ? "Verification Time" : "Attendance Time",
+                        LocalDateTime.now().format(DATE_FORMATTER)),
+                additionalMessage);
+        return new OutboxEmail(dedupeKey(sic, isVerification ? "VERIFIED" : "MARKED", LocalDate.now()), toEmail,
+                subject, html);
     }
 
-    public void sendAttendanceFailure(String toEmail, String sic, boolean isVerification) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            
-            helper.setFrom(fromEmail);
-            helper.setTo(toEmail);
-            
-            String type = isVerification ? "Verification" : "Attendance";
-            String subject = "X Attendance " + type + " Failed - " + sic;
-            helper.setSubject(subject);
-            
-            String content = 
-                "<p style='margin: 0 0 16px; color: rgba(255, 255, 255, 0.95); font-size: 16px; line-height: 1.6;'>" +
-                "We were unable to mark your hostel attendance " + (isVerification ? "verification" : "") + ". " +
-                "<strong style='color: #ef4444;'>Please try again or contact the hostel administration.</strong></p>" +
-                getDisclaimerHtml();
-            
-            String details = 
-                "<div style='margin-bottom: 16px;'>" +
-                "  <div style='display: flex; align-items: center; margin-bottom: 12px;'>" +
-                "    <span style='font-size: 24px; margin-right: 12px;'>●</span>" +
-                "    <div>" +
-                "      <div style='font-size: 11px; color: rgba(255, 255, 255, 0.5); text-transform: uppercase; letter-spacing: 0.5px; font-weight: 600; margin-bottom: 4px;'>Student ID (SIC)</div>" +
-                "      <div style='font-size: 16px; font-weight: 600; color: rgba(255, 255, 255, 0.95);'>" + sic + "</div>" +
-                "    </div>" +
-                "  </div>" +
-                "  <div style='display: flex; align-items: center; margin-bottom: 12px;'>" +
-                "    <span style='font-size: 24px; margin-right: 12px;'>⏱</span>" +
-                "    <div>" +
-                "      <div style='font-size: 11px; color: rgba(255, 255, 255, 0.5); text-transform: uppercase; letter-spacing: 0.5px; font-weight: 600; margin-bottom: 4px;'>Attempted Time</div>" +
-                "      <div style='font-size: 16px; font-weight: 600; color: rgba(255, 255, 255, 0.95);'>" + LocalDateTime.now().format(DATE_FORMATTER) + "</div>" +
-                "    </div>" +
-                "  </div>" +
-                "  <div style='display: flex; align-items: center;'>" +
-                "    <span style='font-size: 24px; margin-right: 12px;'>X</span>" +
-                "    <div>" +
-                "      <div style='font-size: 11px; color: rgba(255, 255, 255, 0.5); text-transform: uppercase; letter-spacing: 0.5px; font-weight: 600; margin-bottom: 4px;'>Status</div>" +
-                "      <div style='display: inline-block; padding: 6px 12px; border-radius: 8px; font-size: 12px; font-weight: 700; text-transform: uppercase; background: rgba(239, 68, 68, 0.2); color: #ef4444;'>Failed</div>" +
-                "    </div>" +
-                "  </div>" +
-                "</div>";
-            
-            String additionalMessage = "Please contact the hostel administration if this issue persists. You may need to mark your attendance manually.";
-            
-            String htmlContent = buildEmailTemplate(subject, content, details, additionalMessage);
-            helper.setText(htmlContent, true);
-            
-            mailSender.send(message);
-            log.info("Failure HTML email sent to {} for SIC: {}", toEmail, sic);
-        } catch (MessagingException e) {
-            log.error("Failed to send failure HTML email to {} for SIC: {}", toEmail, sic, e);
-        }
+    public OutboxEmail attendanceFailure(String toEmail, String sic, boolean isVerification) {
+        String type = isVerification ? "Verification" : "Attendance";
+        String subject = "X Attendance " + type + " Failed - " + sic;
+        
+        String additionalMessage = "Please contact the hostel administration if this issue persists. You may need to mark your attendance manually.";
+        
+        String html = render(subject,
+                ATTENDANCE_FAILURE_CONTENT.with(isVerification ? "verification" : ""),
+                ATTENDANCE_FAILURE_DETAILS.with(sic, LocalDateTime.now().format(DATE_FORMATTER)),
+                additionalMessage);
+        return new OutboxEmail(dedupeKey(sic, isVerification ? "VERIFY_FAILED" : "MARK_FAILED", LocalDate.now()),
+                toEmail, subject, html);
     }
 
-    public void sendChangeNotification(String toEmail, String sic, String changeType, String changeDetails) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            
-            helper.setFrom(fromEmail);
-            helper.setTo(toEmail);
-            
-            String subject = "Account Change Notification - " + changeType;
-            helper.setSubject(subject);
-            
-            String content = 
-                "<p style='margin: 0 0 16px; color: rgba(255, 255, 255, 0.95); font-size: 16px; line-height: 1.6;'>" +
-                "This is to notify you that a change has been made to your account. " +
-                "<strong style='color: #f59e0b;'>Please review the details below.</strong></p>" +
-                getDisclaimerHtml();
-            
-            String details = 
-                "<div style='margin-bottom: 16px;'>" +
-                "  <div style='display: flex; align-items: center; margin-bottom: 12px;'>" +
-                "    <span style='font-size: 24px; margin-right: 12px;'>●</span>" +
-                "    <div>" +
-                "      <div style='font-size: 11px; color: rgba(255, 255, 255, 0.5); text-transform: uppercase; letter-spacing: 0.5px; font-weight: 600; margin-bottom: 4px;'>Student ID (SIC)</div>" +
-                "      <div style='font-size: 16px; font-weight: 600; color: rgba(255, 255, 255, 0.95);'>" + sic + "</div>" +
-                "    </div>" +
-                "  </div>" +
-                "  <div style='display: flex; align-items: center; margin-bottom: 12px;'>" +
-                "    <span style='font-size: 24px; margin-right: 12px;'>⟳</span>" +
-                "    <div>" +
-                "      <div style='font-size: 11px; color: rgba(255, 255, 255, 0.5); text-transform: uppercase; letter-spacing: 0.5px; font-weight: 600; margin-bottom: 4px;'>Change Type</div>" +
-                "      <div style='font-size: 16px; font-weight: 600; color: rgba(255, 255, 255, 0.95);'>" + changeType + "</div>" +
-                "    </div>" +
-                "  </div>" +
-                "  <div style='display: flex; align-items: center; margin-bottom: 12px;'>" +
-                "    <span style='font-size: 24px; margin-right: 12px;'>✎</span>" +
-                "    <div>" +
-                "      <div style='font-size: 11px; color: rgba(255, 255, 255, 0.5); text-transform: uppercase; letter-spacing: 0.5px; font-weight: 600; margin-bottom: 4px;'>Details</div>" +
-                "      <div style='font-size: 16px; font-weight: 600; color: rgba(255, 255, 255, 0.95);'>" + changeDetails + "</div>" +
-                "    </div>" +
-                "  </div>" +
-                "  <div style='display: flex; align-items: center;'>" +
-                "    <span style='font-size: 24px; margin-right: 12px;'>⏱</span>" +
-                "    <div>" +
-                "      <div style='font-size: 11px; color: rgba(255, 255, 255, 0.5); text-transform: uppercase; letter-spacing: 0.5px; font-weight: 600; margin-bottom: 4px;'>Time</div>" +
-                "      <div style='font-size: 16px; font-weight: 600; color: rgba(255, 255, 255, 0.95);'>" + LocalDateTime.now().format(DATE_FORMATTER) + "</div>" +
-                "    </div>" +
-                "  </div>" +
-                "</div>";
-            
-            String additionalMessage = "<strong style='color: #f59e0b;'>⚠ Important:</strong> If you did not make this change or if this was done by mistake, please login immediately and update your information, or contact the administrator.";
-            
-            String htmlContent = buildEmailTemplate(subject, content, details, additionalMessage);
-            helper.setText(htmlContent, true);
-            
-            mailSender.send(message);
-            log.info("Change notification HTML email sent to {} for SIC: {} - {}", toEmail, sic, changeType);
-        } catch (MessagingException e) {
-            log.error("Failed to send change notification HTML email to {} for SIC: {}", toEmail, sic, e);
-        }
+    /**
+     * One email listing every change in {@code changes}. A single change keeps
+     * its type in the subject; several are summarised by count. Not
+     * de-duplicated: the coalescer merges a student's changes into one unsent row.
+     */
+    public OutboxEmail changeNotification(String toEmail, String sic, List<Change> changes) {
+        String subject = changes.size() == 1
+            ? "Account Change Notification - " + changes.get(0).getType()
+            : "Account Change Notification - " + changes.size() + " changes";
+        
+        EmailTemplate.Fragment rows = out -> changes.forEach(change ->
+                CHANGE_ROW.renderTo(out, change.getType(), change.getDetails()));
+        String html = render(subject,
+                CHANGE_CONTENT.with(),
+                CHANGE_DETAILS.with(sic, rows, LocalDateTime.now().format(DATE_FORMATTER)),
+                CHANGE_ADDITIONAL_MESSAGE.with());
+        return new OutboxEmail(null, toEmail, subject, html);
+    }
+
+    /**
+     * Tell a student whose pause expired that marking has resumed. One per
+     * student per reactivation date.
+     */
+    public OutboxEmail reactivationNotice(String toEmail, String sic, LocalDate date) {
+        String subject = "✓ Attendance Marking Resumed - " + sic;
+        String additionalMessage = "If you are still away from the hostel, please login and pause your attendance again.";
+
+        String html = render(subject,
+                REACTIVATION_CONTENT.with(date.format(DAY_FORMATTER)),
+                REACTIVATION_DETAILS.with(sic),
+                additionalMessage);
+        return new OutboxEmail("reactivated:" + sic + ":" + date, toEmail, subject, html);
     }
 
     public void sendCustomMessage(String toEmail, String subject, String body) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            
-            helper.setFrom(fromEmail);
-            helper.setTo(toEmail);
-            helper.setSubject(subject);
-            
-            String content = 
-                "<p style='margin: 0 0 16px; color: rgba(255, 255, 255, 0.95); font-size: 16px; line-height: 1.6;'>" +
-                body.replace("\n", "<br>") + "</p>" +
-                getDisclaimerHtml();
-            
-            String details = 
-                "<div style='padding: 16px; background: rgba(99, 102, 241, 0.1); border-radius: 12px; border: 1px solid rgba(99, 102, 241, 0.3);'>" +
-                "  <div style='display: flex; align-items: center;'>" +
-                "    <span style='font-size: 24px; margin-right: 12px;'>●</span>" +
-                "    <div style='font-size: 14px; color: rgba(255, 255, 255, 0.75); font-style: italic;'>" +
-                "      This message was sent from the Hostel Attendance System Admin Panel" +
-                "    </div>" +
-                "  </div>" +
-                "</div>";
-            
-            String additionalMessage = "If you have any questions or concerns, please contact the hostel administration.";
-            
-            String htmlContent = buildEmailTemplate(subject, content, details, additionalMessage);
-            helper.setText(htmlContent, true);
-            
-            mailSender.send(message);
-            log.info("Custom HTML message sent to {}", toEmail);
-        } catch (MessagingException e) {
-            log.error("Failed to send custom HTML message to {}", toEmail, e);
-        }
+        outbox.enqueue(new OutboxEmail(null, toEmail, subject, customMessageHtml(subject, body)));
+        log.info("Custom message queued for {}", toEmail);
     }
-    
-    private String buildEmailTemplate(String subject, String content, String details, String additionalMessage) {
-        int currentYear = LocalDateTime.now().getYear();
+
+    String customMessageHtml(String subject, String body) {
+        String additionalMessage = "If you have any questions or concerns, please contact the hostel administration.";
         
-        return "<!DOCTYPE html>" +
-            "<html lang='en'>" +
-            "<head>" +
-            "  <meta charset='UTF-8'>" +
-            "  <meta name='viewport' content='width=device-width, initial-scale=1.0'>" +
-            "  <title>" + subject + "</title>" +
-            "</head>" +
-            "<body style='margin: 0; padding: 0; font-family: Inter, -apple-system, BlinkMacSystemFont, Segoe UI, Roboto, sans-serif; background: linear-gradient(135deg, #0f0c29 0%, #302b63 50%, #24243e 100%); min-height: 100vh;'>" +
-            "  <table role='presentation' cellspacing='0' cellpadding='0' border='0' width='100%' style='background: linear-gradient(135deg, #0f0c29 0%, #302b63 50%, #24243e 100%); padding: 40px 20px;'>" +
-            "    <tr>" +
-            "      <td align='center'>" +
-            "        <table role='presentation' cellspacing='0' cellpadding='0' border='0' width='600' style='max-width: 600px; background: rgba(255, 255, 255, 0.05); backdrop-filter: blur(20px); border: 1px solid rgba(255, 255, 255, 0.1); border-radius: 24px; overflow: hidden; box-shadow: 0 8px 32px rgba(0, 0, 0, 0.5);'>" +
-            "          <tr>" +
-            "            <td style='background: linear-gradient(135deg, rgba(102, 126, 234, 0.2) 0%, rgba(118, 75, 162, 0.2) 100%); padding: 40px 40px 30px; text-align: center; border-bottom: 1px solid rgba(255, 255, 255, 0.1);'>" +
-            "              <div style='font-size: 64px; margin-bottom: 16px;'>•</div>" +
-            "              <h1 style='margin: 0 0 8px; font-size: 28px; font-weight: 800; color: #fff;'>Attendance Automation</h1>" +
-            "              <p style='margin: 0; color: rgba(255, 255, 255, 0.8); font-size: 14px; font-weight: 400;'>College Hostel Attendance System</p>" +
-            "            </td>" +
-            "          </tr>" +
-            "          <tr>" +
-            "            <td style='padding: 40px;'>" +
-            "              <p style='margin: 0 0 24px; color: rgba(255, 255, 255, 0.95); font-size: 16px; line-height: 1.6;'>Dear Student,</p>" +
-            "              <div style='margin-bottom: 32px;'>" + content + "</div>" +
-            "              <table role='presentation' cellspacing='0' cellpadding='0' border='0' width='100%' style='background: rgba(255, 255, 255, 0.03); border: 1px solid rgba(255, 255, 255, 0.1); border-radius: 16px; margin-bottom: 32px;'>" +
-            "                <tr><td style='padding: 24px;'>" + details + "</td></tr>" +
-            "              </table>" +
-            "              <p style='margin: 0 0 24px; color: rgba(255, 255, 255, 0.75); font-size: 15px; line-height: 1.6;'>" + additionalMessage + "</p>" +
-            "              <div style='margin-top: 40px; padding-top: 24px; border-top: 1px solid rgba(255, 255, 255, 0.1);'>" +
-            "                <p style='margin: 0 0 8px; color: rgba(255, 255, 255, 0.95); font-size: 15px; font-weight: 600;'>Best regards,</p>" +
-            "                <p style='margin: 0; color: rgba(255, 255, 255, 0.75); font-size: 15px;'>Hostel Attendance System</p>" +
-            "              </div>" +
-            "            </td>" +
-            "          </tr>" +
-            "          <tr>" +
-            "            <td style='background: rgba(0, 0, 0, 0.2); padding: 24px 40px; text-align: center; border-top: 1px solid rgba(255, 255, 255, 0.1);'>" +
-            "              <table role='presentation' cellspacing='0' cellpadding='0' border='0' width='100%' style='margin-bottom: 20px;'>" +
-            "                <tr>" +
-            "                  <td align='center'>" +
-            "                    <table role='presentation' cellspacing='0' cellpadding='0' border='0'>" +
-            "                      <tr>" +
-            "                        <td style='padding: 8px 12px; background: rgba(255, 255, 255, 0.05); border: 1px solid rgba(255, 255, 255, 0.1); border-radius: 50px; margin: 0 4px;'>" +
-            "                          <span style='color: rgba(255, 255, 255, 0.9); font-size: 12px;'>Auto Mark Daily</span>" +
-            "                        </td>" +
-            "                        <td style='padding: 8px 12px; background: rgba(255, 255, 255, 0.05); border: 1px solid rgba(255, 255, 255, 0.1); border-radius: 50px; margin: 0 4px;'>" +
-            "                          <span style='color: rgba(255, 255, 255, 0.9); font-size: 12px;'>Verified</span>" +
-            "                        </td>" +
-            "                        <td style='padding: 8px 12px; background: rgba(255, 255, 255, 0.05); border: 1px solid rgba(255, 255, 255, 0.1); border-radius: 50px; margin: 0 4px;'>" +
-            "                          <span style='color: rgba(255, 255, 255, 0.9); font-size: 12px;'>Secure</span>" +
-            "                        </td>" +
-            "                      </tr>" +
-            "                    </table>" +
-            "                  </td>" +
-            "                </tr>" +
-            "              </table>" +
-            "              <p style='margin: 0; color: rgba(255, 255, 255, 0.5); font-size: 12px;'>© " + currentYear + " College Attendance Automation. All rights reserved.</p>" +
-            "              <p style='margin: 12px 0 0; color: rgba(255, 255, 255, 0.4); font-size: 11px; line-height: 1.5;'>This is an automated message. Please do not reply to this email.</p>" +
-            "            </td>" +
-            "          </tr>" +
-            "        </table>" +
-            "      </td>" +
-            "    </tr>" +
-            "  </table>" +
-            "</body>" +
-            "</html>";
+        return render(subject,
+                CUSTOM_CONTENT.with(EmailTemplate.escape(body).replace("\n", "<br>")),
+                CUSTOM_DETAILS.with(),
+                additionalMessage);
+    }
+    
+    /**
+     * Let the day's attendance emails go out again once an admin has reopened the
+     * day, so the new outcome is reported. Runs in the caller's transaction; the
+     * emails already sent stay in the outbox.
+     */
+    public void forgetAttendanceEmails(String sic, LocalDate date) {
+        outbox.clearDedupeKeys(ATTENDANCE_EMAIL_TYPES.stream()
+                .map(type -> dedupeKey(sic, type, date))
+                .collect(Collectors.toList()));
+    }
+
+    // One attendance email of each type per student per day
+    private static String dedupeKey(String sic, String type, LocalDate date) {
+        return "attendance:" + type + ":" + sic + ":" + date;
+    }
+
+    private static String render(String subject, EmailTemplate.Fragment content, EmailTemplate.Fragment details,
+                                 Object additionalMessage) {
+        return LAYOUT.render(subject, content, details, additionalMessage, LocalDate.now().getYear());
     }
 }
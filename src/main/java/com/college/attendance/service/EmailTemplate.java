@@ -0,0 +1,169 @@
+package com.college.attendance.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An HTML email template parsed once into static segments and placeholders.
+ * {@code {{name}}} is replaced by the HTML-escaped value and {@code {{{name}}}}
+ * by the raw value, for markup the code itself supplies. Values are passed in
+ * the order the parameter names were declared; a nested template bound with
+ * {@link #with} renders straight into the parent's buffer. Rendering appends
+ * to a per-thread StringBuilder that is reused across calls, so the only
+ * large allocation per email is the resulting String. Non-ASCII characters in
+ * the static text and in escaped values are written as numeric character
+ * references, which keeps that String in the compact one-byte form.
+ */
+public final class EmailTemplate {
+
+    private static final int INITIAL_CAPACITY = 16 * 1024;
+    // Buffers grown past this by an unusually large email are not kept
+    private static final int MAX_RETAINED_CAPACITY = 256 * 1024;
+
+    private static final ThreadLocal<StringBuilder> BUFFER =
+            ThreadLocal.withInitial(() -> new StringBuilder(INITIAL_CAPACITY));
+
+    private final String[] segments;
+    private final int[] slots;
+    private final boolean[] raw;
+    private final int parameterCount;
+
+    private EmailTemplate(String[] segments, int[] slots, boolean[] raw, int parameterCount) {
+        this.segments = segments;
+        this.slots = slots;
+        this.raw = raw;
+        this.parameterCount = parameterCount;
+    }
+
+    /**
+     * Parse a template. Fails fast on unknown or unterminated placeholders, so a
+     * broken template stops the application at startup rather than at send time.
+     */
+    public static EmailTemplate compile(String source, String... parameters) {
+        List<String> names = Arrays.asList(parameters);
+        List<String> segments = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        List<Boolean> raw = new ArrayList<>();
+
+        int position = 0;
+        int open;
+        while ((open = source.indexOf("{{", position)) >= 0) {
+            boolean triple = source.startsWith("{{{", open);
+            String close = triple ? "}}}" : "}}";
+            int nameStart = open + (triple ? 3 : 2);
+            int end = source.indexOf(close, nameStart);
+            if (end < 0) {
+                throw new IllegalArgumentException("Unterminated placeholder at offset " + open);
+            }
+            String name = source.substring(nameStart, end).trim();
+            int slot = names.indexOf(name);
+            if (slot < 0) {
+                throw new IllegalArgumentException("Unknown placeholder: " + name);
+            }
+            segments.add(encodeNonAscii(source.substring(position, open)));
+            slots.add(slot);
+            raw.add(triple);
+            position = end + close.length();
+        }
+        segments.add(encodeNonAscii(source.substring(position)));
+
+        boolean[] rawFlags = new boolean[raw.size()];
+        for (int i = 0; i < rawFlags.length; i++) {
+            rawFlags[i] = raw.get(i);
+        }
+        return new EmailTemplate(segments.toArray(new String[0]),
+                slots.stream().mapToInt(Integer::intValue).toArray(), rawFlags, parameters.length);
+    }
+
+    public String render(Object... values) {
+        StringBuilder out = BUFFER.get();
+        if (out.length() > 0) {
+            // Called while this thread's buffer is in use
+            return renderTo(new StringBuilder(INITIAL_CAPACITY), values).toString();
+        }
+        try {
+            return renderTo(out, values).toString();
+        } finally {
+            out.setLength(0);
+            if (out.capacity() > MAX_RETAINED_CAPACITY) {
+                BUFFER.remove();
+            }
+        }
+    }
+
+    public StringBuilder renderTo(StringBuilder out, Object... values) {
+        if (values.length != parameterCount) {
+            throw new IllegalArgumentException("Expected " + parameterCount + " values, got " + values.length);
+        }
+        for (int i = 0; i < slots.length; i++) {
+            out.append(segments[i]);
+            append(out, values[slots[i]], raw[i]);
+        }
+        return out.append(segments[slots.length]);
+    }
+
+    // Bind values now and render later, as the value of a placeholder in another template
+    public Fragment with(Object... values) {
+        return out -> renderTo(out, values);
+    }
+
+    public static String escape(String value) {
+        return escape(new StringBuilder(value.length() + 16), value).toString();
+    }
+
+    private static void append(StringBuilder out, Object value, boolean raw) {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof Fragment fragment) {
+            fragment.renderTo(out);
+        } else if (value instanceof Integer number) {
+            out.append(number.intValue());
+        } else if (raw) {
+            out.append(value);
+        } else {
+            escape(out, value.toString());
+        }
+    }
+
+    private static String encodeNonAscii(String text) {
+        StringBuilder out = new StringBuilder(text.length());
+        text.codePoints().forEach(codePoint -> {
+            if (codePoint < 0x80) {
+                out.append((char) codePoint);
+            } else {
+                out.append("&#").append(codePoint).append(';');
+            }
+        });
+        return out.toString();
+    }
+
+    private static StringBuilder escape(StringBuilder out, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&' -> out.append("&amp;");
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> {
+                    if (c < 0x80) {
+                        out.append(c);
+                    } else {
+                        int codePoint = value.codePointAt(i);
+                        out.append("&#").append(codePoint).append(';');
+                        i += Character.charCount(codePoint) - 1;
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    @FunctionalInterface
+    public interface Fragment {
+        void renderTo(StringBuilder out);
+    }
+}
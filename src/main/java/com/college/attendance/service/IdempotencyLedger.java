@@ -0,0 +1,177 @@
+package com.college.attendance.service;
+
+import com.college.attendance.entity.AttendanceLedgerEntry.Phase;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ledger of ERP calls keyed by (sic, date, phase), consulted before every mark
+ * and verify call so a restart, redeploy or overlapping tick cannot repeat the
+ * call or its email. A claim is a unique-constraint insert into
+ * attendance_ledger. The result sink completes a key in the transaction that
+ * writes the call's outcome.
+ * Completed keys are cached in memory, but an admin reset on another node
+ * deletes the row without touching this node's cache, so a cached DONE is
+ * confirmed with a primary-key read before it is acted on.
+ * A claim left uncompleted by a crashed node can be taken over once it is older
+ * than the stale timeout, since otherwise that student would never be marked.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyLedger {
+
+    private static final String CLAIM_SQL =
+            "INSERT INTO attendance_ledger (attendance_date, phase, sic, claimed_at, claimed_by) VALUES (?, ?, ?, ?, ?)";
+    private static final String TAKE_OVER_SQL =
+            "UPDATE attendance_ledger SET claimed_at = ?, claimed_by = ? " +
+            "WHERE attendance_date = ? AND phase = ? AND sic = ? AND completed_at IS NULL AND claimed_at < ?";
+    private static final String COMPLETED_SQL =
+            "SELECT completed_at FROM attendance_ledger WHERE attendance_date = ? AND phase = ? AND sic = ?";
+    private static final String COMPLETE_SQL =
+            "UPDATE attendance_ledger SET completed_at = ? WHERE attendance_date = ? AND phase = ? AND sic = ?";
+    private static final String RELEASE_SQL =
+            "DELETE FROM attendance_ledger WHERE attendance_date = ? AND phase = ? AND sic = ? AND completed_at IS NULL";
+    private static final String RESET_SQL =
+            "DELETE FROM attendance_ledger WHERE attendance_date = ? AND sic = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NodeIdentity nodeIdentity;
+
+    @Value("${app.attendance.ledger.stale-claim-minutes:10}")
+    private long staleClaimMinutes;
+
+    private final Set<String> completed = ConcurrentHashMap.newKeySet();
+
+    private volatile LocalDate cachedFor;
+
+    public enum Claim {
+        // This caller holds the key and should make the call
+        CLAIMED,
+        // The call was already made and completed
+        DONE,
+        // Another node or tick is making the call right now
+        BUSY
+    }
+
+    public Claim tryClaim(String sic, LocalDate date, Phase phase) {
+        if (isCompleted(sic, date, phase)) {
+            if (completedInDatabase(sic, date, phase)) {
+                return Claim.DONE;
+            }
+            // Reset since it was cached, possibly on another node
+            completed.remove(key(sic, date, phase));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            jdbcTemplate.update(CLAIM_SQL, Date.valueOf(date), phase.name(), sic, Timestamp.valueOf(now),
+                    nodeIdentity.getId());
+            return Claim.CLAIMED;
+        } catch (DuplicateKeyException e) {
+            int takenOver = jdbcTemplate.update(TAKE_OVER_SQL, Timestamp.valueOf(now), nodeIdentity.getId(),
+                    Date.valueOf(date), phase.name(), sic, Timestamp.valueOf(now.minusMinutes(staleClaimMinutes)));
+            if (takenOver > 0) {
+                log.warn("Took over stale {} claim for SIC: {} on {}", phase, sic, date);
+                return Claim.CLAIMED;
+            }
+        }
+
+        if (completedInDatabase(sic, date, phase)) {
+            cache(sic, date, phase);
+            return Claim.DONE;
+        }
+        return Claim.BUSY;
+    }
+
+    /**
+     * The calls were made; no node may make them again. Runs in the caller's
+     * transaction, which also writes their outcomes, so a key only reads DONE
+     * once its outcome is durable. The local cache follows after commit.
+     */
+    public void completeAll(Phase phase, LocalDate date, List<String> sics) {
+        if (sics.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(sics.size());
+        for (String sic : sics) {
+            args.add(new Object[]{now, Date.valueOf(date), phase.name(), sic});
+        }
+        jdbcTemplate.batchUpdate(COMPLETE_SQL, args);
+
+        afterCommit(() -> sics.forEach(sic -> cache(sic, date, phase)));
+    }
+
+    // The call was not made or should be retried; give the key back
+    public void release(String sic, LocalDate date, Phase phase) {
+        jdbcTemplate.update(RELEASE_SQL, Date.valueOf(date), phase.name(), sic);
+    }
+
+    /**
+     * Admin cleared the day's attendance, so both phases may run again. Runs in
+     * the caller's transaction; this node's cache is evicted after commit, and
+     * other nodes find out when they confirm their cached DONE.
+     */
+    public void reset(String sic, LocalDate date) {
+        jdbcTemplate.update(RESET_SQL, Date.valueOf(date), sic);
+        afterCommit(() -> {
+            for (Phase phase : Phase.values()) {
+                completed.remove(key(sic, date, phase));
+            }
+        });
+    }
+
+    private boolean isCompleted(String sic, LocalDate date, Phase phase) {
+        return date.equals(cachedFor) && completed.contains(key(sic, date, phase));
+    }
+
+    private boolean completedInDatabase(String sic, LocalDate date, Phase phase) {
+        List<Timestamp> completedAt = jdbcTemplate.queryForList(COMPLETED_SQL, Timestamp.class,
+                Date.valueOf(date), phase.name(), sic);
+        return !completedAt.isEmpty() && completedAt.get(0) != null;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private synchronized void cache(String sic, LocalDate date, Phase phase) {
+        if (!date.equals(cachedFor)) {
+            if (cachedFor != null && date.isBefore(cachedFor)) {
+                return;
+            }
+            completed.clear();
+            cachedFor = date;
+        }
+        completed.add(key(sic, date, phase));
+    }
+
+    private static String key(String sic, LocalDate date, Phase phase) {
+        return date + "|" + phase + "|" + sic;
+    }
+}
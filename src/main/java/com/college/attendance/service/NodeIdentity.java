@@ -0,0 +1,23 @@
+package com.college.attendance.service;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Name this node records in the lease, claim and lock rows it owns. Set
+ * {@code app.attendance.node-id} to keep it stable across restarts; otherwise
+ * the JVM's pid@host name is used.
+ */
+@Component
+@Getter
+public class NodeIdentity {
+
+    private final String id;
+
+    public NodeIdentity(@Value("${app.attendance.node-id:}") String configuredId) {
+        id = configuredId.isBlank() ? ManagementFactory.getRuntimeMXBean().getName() : configuredId;
+    }
+}
@@ -10,6 +10,7 @@ import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 
 import java.security.SecureRandom;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Map;
@@ -21,10 +22,15 @@ import java.util.concurrent.ConcurrentHashMap;
 public class OtpService {
 
     private final JavaMailSender mailSender;
+    private final SmtpRateGovernor rateGovernor;
     
     @Value("${spring.mail.username}")
     private String fromEmail;
 
+    // An OTP that cannot be sent within this long is reported as a failure instead of hanging the request
+    @Value("${app.mail.rate.otp-max-wait-seconds:30}")
+    private long otpMaxWaitSeconds;
+
     // Store OTPs with expiration time (email/sic -> OTP data)
     private final Map<String, OtpData> otpStore = new ConcurrentHashMap<>();
     
@@ -33,32 +39,108 @@ public class OtpService {
     private static final SecureRandom random = new SecureRandom();
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy hh:mm a");
     
-    /**
-     * Get disclaimer text for OTP emails (HTML formatted)
-     */
-    private String getDisclaimerHtml() {
-        return "<div style='background: rgba(239, 68, 68, 0.1); border: 2px solid rgba(239, 68, 68, 0.3); border-radius: 12px; padding: 20px; margin: 24px 0;'>" +
-               "  <div style='text-align: center; margin-bottom: 16px;'>" +
-               "    <div style='font-size: 32px; margin-bottom: 8px;'>⚠</div>" +
-               "    <h2 style='margin: 0; color: #ef4444; font-size: 18px; font-weight: 700; text-transform: uppercase; letter-spacing: 1px;'>IMPORTANT LEGAL NOTICE</h2>" +
-               "  </div>" +
-               "  <div style='background: rgba(0, 0, 0, 0.2); border-radius: 8px; padding: 16px;'>" +
-               "    <p style='margin: 0 0 12px; color: rgba(255, 255, 255, 0.95); font-size: 14px; line-height: 1.6;'><strong style='color: #fbbf24;'>This is an ACADEMIC PROJECT for educational purposes only.</strong></p>" +
-               "    <p style='margin: 0 0 12px; color: rgba(255, 255, 255, 0.9); font-size: 13px; line-height: 1.6;'>By using this system, you acknowledge and agree that:</p>" +
-               "    <ul style='margin: 0; padding-left: 20px; color: rgba(255, 255, 255, 0.85); font-size: 12px; line-height: 1.8;'>" +
-               "      <li>This is a <strong>STUDENT PROJECT</strong> for testing and evaluation only</li>" +
-               "      <li>You will <strong>NOT</strong> use this for actual daily attendance management</li>" +
-               "      <li>You are <strong>SOLELY RESPONSIBLE</strong> for any consequences</li>" +
-               "      <li>The developer is <strong>NOT LIABLE</strong> for any issues or problems</li>" +
-               "      <li>The developer has the <strong>RIGHT TO SHARE</strong> your data with authorities if any problems arise from college or government</li>" +
-               "      <li>YOU are the <strong>SOLE CASE HOLDER</strong> for any legal/disciplinary actions</li>" +
-               "      <li>You must <strong>INDEMNIFY AND HOLD HARMLESS</strong> the developer</li>" +
-               "      <li>These terms are <strong>BINDING</strong> upon registration</li>" +
-               "    </ul>" +
-               "    <p style='margin: 12px 0 0; color: rgba(255, 255, 255, 0.75); font-size: 11px; font-style: italic;'>For complete terms, visit the registration page.</p>" +
-               "  </div>" +
-               "</div>";
-    }
+    private static final EmailTemplate OTP_CONTENT = EmailTemplate.compile(
+        "<p style='margin: 0 0 16px; color: rgba(255, 255, 255, 0.95); font-size: 16px; line-height: 1.6;'>{{message}}</p>" +
+        "<div style='text-align: center; margin: 32px 0;'>" +
+        "  <div style='background: linear-gradient(135deg, rgba(102, 126, 234, 0.2) 0%, rgba(118, 75, 162, 0.2) 100%); border: 2px solid rgba(102, 126, 234, 0.4); border-radius: 16px; padding: 24px; display: inline-block;'>" +
+        "    <div style='font-size: 12px; color: rgba(255, 255, 255, 0.6); text-transform: uppercase; letter-spacing: 1px; margin-bottom: 8px; font-weight: 600;'>Your OTP Code</div>" +
+        "    <div onclick=\"navigator.clipboard.writeText('{{otp}}').then(() => alert('OTP copied to clipboard!')).catch(() => {})\" style='font-size: 42px; font-weight: 800; color: #fff; letter-spacing: 8px; font-family: monospace; cursor: pointer; user-select: all; -webkit-user-select: all; -moz-user-select: all; -ms-user-select: all; padding: 8px; border-radius: 8px; transition: background 0.3s ease;' onmouseover=\"this.style.background='rgba(102, 126, 234, 0.3)'\" onmouseout=\"this.style.background='transparent'\" title='Click to copy'>{{otp}}</div>" +
+        "    <div style='font-size: 11px; color: rgba(255, 255, 255, 0.5); margin-top: 8px;'>Valid for {{expiryMinutes}} minutes • Click to copy</div>" +
+        "  </div>" +
+        "</div>" +
+        EmailService.DISCLAIMER_HTML,
+        "message", "otp", "expiryMinutes");
+
+    private static final EmailTemplate OTP_SIC_ROW = EmailTemplate.compile(
+        "<div style='display: flex; align-items: center; margin-bottom: 12px;'>" +
+        "  <span style='font-size: 24px; margin-right: 12px;'>●</span>" +
+        "  <div>" +
+        "    <div style='font-size: 11px; color: rgba(255, 255, 255, 0.5); text-transform: uppercase; letter-spacing: 0.5px; font-weight: 600; margin-bottom: 4px;'>Student ID (SIC)</div>" +
+        "    <div style='font-size: 16px; font-weight: 600; color: rgba(255, 255, 255, 0.95);'>{{sic}}</div>" +
+        "  </div>" +
+        "</div>",
+        "sic");
+
+    private static final EmailTemplate OTP_DETAILS = EmailTemplate.compile(
+        "<div style='margin-bottom: 16px;'>{{{sicRow}}}" +
+        "<div style='display: flex; align-items: center;'>" +
+        "  <span style='font-size: 24px; margin-right: 12px;'>⏱</span>" +
+        "  <div>" +
+        "    <div style='font-size: 11px; color: rgba(255, 255, 255, 0.5); text-transform: uppercase; letter-spacing: 0.5px; font-weight: 600; margin-bottom: 4px;'>Sent At</div>" +
+        "    <div style='font-size: 16px; font-weight: 600; color: rgba(255, 255, 255, 0.95);'>{{time}}</div>" +
+        "  </div>" +
+        "</div>" +
+        "</div>",
+        "sicRow", "time");
+
+    // Content and details are nested templates; everything else is escaped text
+    private static final EmailTemplate OTP_LAYOUT = EmailTemplate.compile(
+        "<!DOCTYPE html>" +
+        "<html lang='en'>" +
+        "<head>" +
+        "  <meta charset='UTF-8'>" +
+        "  <meta name='viewport' content='width=device-width, initial-scale=1.0'>" +
+        "  <title>{{title}}</title>" +
+        "</head>" +
+        "<body style='margin: 0; padding: 0; font-family: Inter, -apple-system, BlinkMacSystemFont, Segoe UI, Roboto, sans-serif; background: linear-gradient(135deg, #0f0c29 0%, #302b63 50%, #24243e 100%); min-height: 100vh;'>" +
+        "  <table role='presentation' cellspacing='0' cellpadding='0' border='0' width='100%' style='background: linear-gradient(135deg, #0f0c29 0%, #302b63 50%, #24243e 100%); padding: 40px 20px;'>" +
+        "    <tr>" +
+        "      <td align='center'>" +
+        "        <table role='presentation' cellspacing='0' cellpadding='0' border='0' width='600' style='max-width: 600px; background: rgba(255, 255, 255, 0.05); backdrop-filter: blur(20px); border: 1px solid rgba(255, 255, 255, 0.1); border-radius: 24px; overflow: hidden; box-shadow: 0 8px 32px rgba(0, 0, 0, 0.5);'>" +
+        "          <tr>" +
+        "            <td style='background: linear-gradient(135deg, rgba(102, 126, 234, 0.2) 0%, rgba(118, 75, 162, 0.2) 100%); padding: 40px 40px 30px; text-align: center; border-bottom: 1px solid rgba(255, 255, 255, 0.1);'>" +
+        "              <div style='font-size: 64px; margin-bottom: 16px;'>•</div>" +
+        "              <h1 style='margin: 0 0 8px; font-size: 28px; font-weight: 800; color: #fff;'>Attendance Automation</h1>" +
+        "              <p style='margin: 0; color: rgba(255, 255, 255, 0.8); font-size: 14px; font-weight: 400;'>College Hostel Attendance System</p>" +
+        "            </td>" +
+        "          </tr>" +
+        "          <tr>" +
+        "            <td style='padding: 40px;'>" +
+        "              <p style='margin: 0 0 24px; color: rgba(255, 255, 255, 0.95); font-size: 16px; line-height: 1.6;'>{{greeting}}</p>" +
+        "              <div style='margin-bottom: 32px;'>{{{content}}}</div>" +
+        "              <table role='presentation' cellspacing='0' cellpadding='0' border='0' width='100%' style='background: rgba(255, 255, 255, 0.03); border: 1px solid rgba(255, 255, 255, 0.1); border-radius: 16px; margin-bottom: 32px;'>" +
+        "                <tr><td style='padding: 24px;'>{{{details}}}</td></tr>" +
+        "              </table>" +
+        "              <p style='margin: 0 0 24px; color: rgba(255, 255, 255, 0.75); font-size: 15px; line-height: 1.6;'>{{additionalInfo}}</p>" +
+        "              <div style='margin-top: 40px; padding-top: 24px; border-top: 1px solid rgba(255, 255, 255, 0.1);'>" +
+        "                <p style='margin: 0 0 8px; color: rgba(255, 255, 255, 0.95); font-size: 15px; font-weight: 600;'>Best regards,</p>" +
+        "                <p style='margin: 0; color: rgba(255, 255, 255, 0.75); font-size: 15px;'>Attendance Automation System</p>" +
+        "                <p style='margin: 4px 0 0; color: rgba(255, 255, 255, 0.5); font-size: 13px; font-style: italic;'>Academic Project</p>" +
+        "              </div>" +
+        "            </td>" +
+        "          </tr>" +
+        "          <tr>" +
+        "            <td style='background: rgba(0, 0, 0, 0.2); padding: 24px 40px; text-align: center; border-top: 1px solid rgba(255, 255, 255, 0.1);'>" +
+        "              <table role='presentation' cellspacing='0' cellpadding='0' border='0' width='100%' style='margin-bottom: 20px;'>" +
+        "                <tr>" +
+        "                  <td align='center'>" +
+        "                    <table role='presentation' cellspacing='0' cellpadding='0' border='0'>" +
+        "                      <tr>" +
+        "                        <td style='padding: 8px 12px; background: rgba(255, 255, 255, 0.05); border: 1px solid rgba(255, 255, 255, 0.1); border-radius: 50px; margin: 0 4px;'>" +
+        "                          <span style='color: rgba(255, 255, 255, 0.9); font-size: 12px;'>Auto Mark Daily</span>" +
+        "                        </td>" +
+        "                        <td style='padding: 8px 12px; background: rgba(255, 255, 255, 0.05); border: 1px solid rgba(255, 255, 255, 0.1); border-radius: 50px; margin: 0 4px;'>" +
+        "                          <span style='color: rgba(255, 255, 255, 0.9); font-size: 12px;'>Verified</span>" +
+        "                        </td>" +
+        "                        <td style='padding: 8px 12px; background: rgba(255, 255, 255, 0.05); border: 1px solid rgba(255, 255, 255, 0.1); border-radius: 50px; margin: 0 4px;'>" +
+        "                          <span style='color: rgba(255, 255, 255, 0.9); font-size: 12px;'>Secure</span>" +
+        "                        </td>" +
+        "                      </tr>" +
+        "                    </table>" +
+        "                  </td>" +
+        "                </tr>" +
+        "              </table>" +
+        "              <p style='margin: 0; color: rgba(255, 255, 255, 0.5); font-size: 12px;'>© {{year}} College Attendance Automation. All rights reserved.</p>" +
+        "              <p style='margin: 12px 0 0; color: rgba(255, 255, 255, 0.4); font-size: 11px; line-height: 1.5;'>This is an automated message. Please do not reply to this email.</p>" +
+        "            </td>" +
+        "          </tr>" +
+        "        </table>" +
+        "      </td>" +
+        "    </tr>" +
+        "  </table>" +
+        "</body>" +
+        "</html>",
+        "title", "greeting", "content", "details", "additionalInfo", "year");
 
     /**
      * Generate a 6-digit OTP
@@ -93,7 +175,7 @@ public class OtpService {
             );
             
             helper.setText(htmlContent, true);
-            mailSender.send(message);
+            send(message);
             log.info("Signup OTP HTML email sent to {} for SIC: {}", email, sic);
             return otp; // Return for development/testing
         } catch (MessagingException e) {
@@ -127,7 +209,7 @@ public class OtpService {
             );
             
             helper.setText(htmlContent, true);
-            mailSender.send(message);
+            send(message);
             log.info("Login OTP HTML email sent to {} for SIC: {}", email, sic);
             return otp;
         } catch (MessagingException e) {
@@ -161,7 +243,7 @@ public class OtpService {
             );
             
             helper.setText(htmlContent, true);
-            mailSender.send(message);
+            send(message);
             log.info("Admin OTP HTML email sent to {}", email);
             return otp;
         } catch (MessagingException e) {
@@ -195,7 +277,7 @@ public class OtpService {
             );
             
             helper.setText(htmlContent, true);
-            mailSender.send(message);
+            send(message);
             log.info("Email change OTP HTML email sent to {} for SIC: {}", newEmail, sic);
             return otp;
         } catch (MessagingException e) {
@@ -204,6 +286,19 @@ public class OtpService {
         }
     }
 
+    // OTPs are sent directly, ahead of all queued mail in the rate governor
+    private void send(MimeMessage message) {
+        try {
+            if (!rateGovernor.acquire(SmtpRateGovernor.Lane.OTP, Duration.ofSeconds(otpMaxWaitSeconds))) {
+                throw new RuntimeException("Email sending limit reached, please try again later");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Failed to send OTP email");
+        }
+        mailSender.send(message);
+    }
+
     /**
      * Verify OTP
      */
@@ -234,7 +329,7 @@ public class OtpService {
     /**
      * Store OTP with expiration
      */
-    private void storeOtp(String key, String otp) {
+    void storeOtp(String key, String otp) {
         LocalDateTime expiryTime = LocalDateTime.now().plusMinutes(OTP_EXPIRY_MINUTES);
         otpStore.put(key, new OtpData(otp, expiryTime));
         log.debug("OTP stored for key: {} with expiry: {}", key, expiryTime);
@@ -251,108 +346,11 @@ public class OtpService {
     /**
      * Build HTML email template for OTP emails
      */
-    private String buildOtpEmailTemplate(String greeting, String title, String message, String otp, String sic, String additionalInfo) {
-        int currentYear = LocalDateTime.now().getYear();
-        
-        String otpDisplay = 
-            "<div style='text-align: center; margin: 32px 0;'>" +
-            "  <div style='background: linear-gradient(135deg, rgba(102, 126, 234, 0.2) 0%, rgba(118, 75, 162, 0.2) 100%); border: 2px solid rgba(102, 126, 234, 0.4); border-radius: 16px; padding: 24px; display: inline-block;'>" +
-            "    <div style='font-size: 12px; color: rgba(255, 255, 255, 0.6); text-transform: uppercase; letter-spacing: 1px; margin-bottom: 8px; font-weight: 600;'>Your OTP Code</div>" +
-            "    <div onclick=\"navigator.clipboard.writeText('" + otp + "').then(() => alert('OTP copied to clipboard!')).catch(() => {})\" style='font-size: 42px; font-weight: 800; color: #fff; letter-spacing: 8px; font-family: monospace; cursor: pointer; user-select: all; -webkit-user-select: all; -moz-user-select: all; -ms-user-select: all; padding: 8px; border-radius: 8px; transition: background 0.3s ease;' onmouseover=\"this.style.background='rgba(102, 126, 234, 0.3)'\" onmouseout=\"this.style.background='transparent'\" title='Click to copy'>" + otp + "</div>" +
-            "    <div style='font-size: 11px; color: rgba(255, 255, 255, 0.5); margin-top: 8px;'>Valid for " + OTP_EXPIRY_MINUTES + " minutes • Click to copy</div>" +
-            "  </div>" +
-            "</div>";
-        
-        String sicDisplay = sic != null ? 
-            "<div style='display: flex; align-items: center; margin-bottom: 12px;'>" +
-            "  <span style='font-size: 24px; margin-right: 12px;'>●</span>" +
-            "  <div>" +
-            "    <div style='font-size: 11px; color: rgba(255, 255, 255, 0.5); text-transform: uppercase; letter-spacing: 0.5px; font-weight: 600; margin-bottom: 4px;'>Student ID (SIC)</div>" +
-            "    <div style='font-size: 16px; font-weight: 600; color: rgba(255, 255, 255, 0.95);'>" + sic + "</div>" +
-            "  </div>" +
-            "</div>" : "";
-        
-        String timeDisplay =
-            "<div style='display: flex; align-items: center;'>" +
-            "  <span style='font-size: 24px; margin-right: 12px;'>⏱</span>" +
-            "  <div>" +
-            "    <div style='font-size: 11px; color: rgba(255, 255, 255, 0.5); text-transform: uppercase; letter-spacing: 0.5px; font-weight: 600; margin-bottom: 4px;'>Sent At</div>" +
-            "    <div style='font-size: 16px; font-weight: 600; color: rgba(255, 255, 255, 0.95);'>" + LocalDateTime.now().format(DATE_FORMATTER) + "</div>" +
-            "  </div>" +
-            "</div>";
-        
-        String details = "<div style='margin-bottom: 16px;'>" + sicDisplay + timeDisplay + "</div>";
-        
-        String content = 
-            "<p style='margin: 0 0 16px; color: rgba(255, 255, 255, 0.95); font-size: 16px; line-height: 1.6;'>" + message + "</p>" +
-            otpDisplay +
-            getDisclaimerHtml();
-        
-        return "<!DOCTYPE html>" +
-            "<html lang='en'>" +
-            "<head>" +
-            "  <meta charset='UTF-8'>" +
-            "  <meta name='viewport' content='width=device-width, initial-scale=1.0'>" +
-            "  <title>" + title + "</title>" +
-            "</head>" +
-            "<body style='margin: 0; padding: 0; font-family: Inter, -apple-system, BlinkMacSystemFont, Segoe UI, Roboto, sans-serif; background: linear-gradient(135deg, #0f0c29 0%, #302b63 50%, #24243e 100%); min-height: 100vh;'>" +
-            "  <table role='presentation' cellspacing='0' cellpadding='0' border='0' width='100%' style='background: linear-gradient(135deg, #0f0c29 0%, #302b63 50%, #24243e 100%); padding: 40px 20px;'>" +
-            "    <tr>" +
-            "      <td align='center'>" +
-            "        <table role='presentation' cellspacing='0' cellpadding='0' border='0' width='600' style='max-width: 600px; background: rgba(255, 255, 255, 0.05); backdrop-filter: blur(20px); border: 1px solid rgba(255, 255, 255, 0.1); border-radius: 24px; overflow: hidden; box-shadow: 0 8px 32px rgba(0, 0, 0, 0.5);'>" +
-            "          <tr>" +
-            "            <td style='background: linear-gradient(135deg, rgba(102, 126, 234, 0.2) 0%, rgba(118, 75, 162, 0.2) 100%); padding: 40px 40px 30px; text-align: center; border-bottom: 1px solid rgba(255, 255, 255, 0.1);'>" +
-            "              <div style='font-size: 64px; margin-bottom: 16px;'>•</div>" +
-            "              <h1 style='margin: 0 0 8px; font-size: 28px; font-weight: 800; color: #fff;'>Attendance Automation</h1>" +
-            "              <p style='margin: 0; color: rgba(255, 255, 255, 0.8); font-size: 14px; font-weight: 400;'>College Hostel Attendance System</p>" +
-            "            </td>" +
-            "          </tr>" +
-            "          <tr>" +
-            "            <td style='padding: 40px;'>" +
-            "              <p style='margin: 0 0 24px; color: rgba(255, 255, 255, 0.95); font-size: 16px; line-height: 1.6;'>" + greeting + "</p>" +
-            "              <div style='margin-bottom: 32px;'>" + content + "</div>" +
-            "              <table role='presentation' cellspacing='0' cellpadding='0' border='0' width='100%' style='background: rgba(255, 255, 255, 0.03); border: 1px solid rgba(255, 255, 255, 0.1); border-radius: 16px; margin-bottom: 32px;'>" +
-            "                <tr><td style='padding: 24px;'>" + details + "</td></tr>" +
-            "              </table>" +
-            "              <p style='margin: 0 0 24px; color: rgba(255, 255, 255, 0.75); font-size: 15px; line-height: 1.6;'>" + additionalInfo + "</p>" +
-            "              <div style='margin-top: 40px; padding-top: 24px; border-top: 1px solid rgba(255, 255, 255, 0.1);'>" +
-            "                <p style='margin: 0 0 8px; color: rgba(255, 255, 255, 0.95); font-size: 15px; font-weight: 600;'>Best regards,</p>" +
-            "                <p style='margin: 0; color: rgba(255, 255, 255, 0.75); font-size: 15px;'>Attendance Automation System</p>" +
-            "                <p style='margin: 4px 0 0; color: rgba(255, 255, 255, 0.5); font-size: 13px; font-style: italic;'>Academic Project</p>" +
-            "              </div>" +
-            "            </td>" +
-            "          </tr>" +
-            "          <tr>" +
-            "            <td style='background: rgba(0, 0, 0, 0.2); padding: 24px 40px; text-align: center; border-top: 1px solid rgba(255, 255, 255, 0.1);'>" +
-            "              <table role='presentation' cellspacing='0' cellpadding='0' border='0' width='100%' style='margin-bottom: 20px;'>" +
-            "                <tr>" +
-            "                  <td align='center'>" +
-            "                    <table role='presentation' cellspacing='0' cellpadding='0' border='0'>" +
-            "                      <tr>" +
-            "                        <td style='padding: 8px 12px; background: rgba(255, 255, 255, 0.05); border: 1px solid rgba(255, 255, 255, 0.1); border-radius: 50px; margin: 0 4px;'>" +
-            "                          <span style='color: rgba(255, 255, 255, 0.9); font-size: 12px;'>Auto Mark Daily</span>" +
-            "                        </td>" +
-            "                        <td style='padding: 8px 12px; background: rgba(255, 255, 255, 0.05); border: 1px solid rgba(255, 255, 255, 0.1); border-radius: 50px; margin: 0 4px;'>" +
-            "                          <span style='color: rgba(255, 255, 255, 0.9); font-size: 12px;'>Verified</span>" +
-            "                        </td>" +
-            "                        <td style='padding: 8px 12px; background: rgba(255, 255, 255, 0.05); border: 1px solid rgba(255, 255, 255, 0.1); border-radius: 50px; margin: 0 4px;'>" +
-            "                          <span style='color: rgba(255, 255, 255, 0.9); font-size: 12px;'>Secure</span>" +
-            "                        </td>" +
-            "                      </tr>" +
-            "                    </table>" +
-            "                  </td>" +
-            "                </tr>" +
-            "              </table>" +
-            "              <p style='margin: 0; color: rgba(255, 255, 255, 0.5); font-size: 12px;'>© " + currentYear + " College Attendance Automation. All rights reserved.</p>" +
-            "              <p style='margin: 12px 0 0; color: rgba(255, 255, 255, 0.4); font-size: 11px; line-height: 1.5;'>This is an automated message. Please do not reply to this email.</p>" +
-            "            </td>" +
-            "          </tr>" +
-            "        </table>" +
-            "      </td>" +
-            "    </tr>" +
-            "  </table>" +
-            "</body>" +
-            "</html>";
+    String buildOtpEmailTemplate(String greeting, String title, String message, String otp, String sic, String additionalInfo) {
+        return OTP_LAYOUT.render(title, greeting,
+                OTP_CONTENT.with(message, otp, OTP_EXPIRY_MINUTES),
+                OTP_DETAILS.with(sic != null ? OTP_SIC_ROW.with(sic) : null, LocalDateTime.now().format(DATE_FORMATTER)),
+                additionalInfo, LocalDateTime.now().getYear());
     }
 
 
@@ -0,0 +1,46 @@
+package com.college.attendance.service;
+
+import com.college.attendance.entity.Student;
+import com.college.attendance.event.PausesExpiredEvent;
+import com.college.attendance.repository.StudentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Follows up on students reactivated by an expired pause. The reactivation
+ * notices are queued in the same transaction as the bulk update, so they commit
+ * or roll back with it; the eligibility index only hears about the students
+ * once the update has committed.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PauseExpiryListener {
+
+    private final StudentRepository studentRepository;
+    private final EligibilityIndex eligibilityIndex;
+    private final EmailService emailService;
+    private final EmailOutbox outbox;
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void queueReactivationNotices(PausesExpiredEvent event) {
+        List<Student> students = studentRepository.findBySicIn(event.getSics());
+        outbox.enqueue(students.stream()
+                .map(student -> emailService.reactivationNotice(student.getEmail(), student.getSic(),
+                        event.getDate()))
+                .collect(Collectors.toList()));
+        log.info("Reactivation notices queued for {} students", students.size());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void updateIndex(PausesExpiredEvent event) {
+        // Reads the committed rows, now ACTIVE with no pause date
+        studentRepository.findBySicIn(event.getSics()).forEach(eligibilityIndex::studentSaved);
+    }
+}
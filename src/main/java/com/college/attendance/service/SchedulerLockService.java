@@ -0,0 +1,93 @@
+package com.college.attendance.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Database lease lock so a {@code @Scheduled} job runs on one node per execution.
+ * The lease is taken with a conditional UPDATE (or the first INSERT of the row),
+ * so no external coordination service is needed. A crashed holder's lease
+ * simply expires after {@code lockAtMostFor}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SchedulerLockService {
+
+    private static final String ACQUIRE_SQL =
+            "UPDATE scheduler_locks SET locked_until = ?, locked_at = ?, locked_by = ? " +
+            "WHERE name = ? AND locked_until <= ?";
+    private static final String INSERT_SQL =
+            "INSERT INTO scheduler_locks (name, locked_until, locked_at, locked_by) VALUES (?, ?, ?, ?)";
+    private static final String RELEASE_SQL =
+            "UPDATE scheduler_locks SET locked_until = ? WHERE name = ? AND locked_by = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final NodeIdentity nodeIdentity;
+
+    /**
+     * Run the task if this node can take the named lease, otherwise skip it.
+     * The lease is kept for at least {@code lockAtLeastFor} so nodes whose
+     * clocks are slightly behind do not run the same execution again.
+     *
+     * @return whether the task ran on this node
+     */
+    public boolean runExclusively(String name, Duration lockAtMostFor, Duration lockAtLeastFor, Runnable task) {
+        LocalDateTime lockedAt = LocalDateTime.now();
+        if (!tryAcquire(name, lockedAt, lockedAt.plus(lockAtMostFor))) {
+            Counter.builder("attendance.scheduler.lock.skipped")
+                    .description("Scheduled job executions skipped because another node holds the lock")
+                    .tag("job", name)
+                    .register(meterRegistry)
+                    .increment();
+            log.info("Skipping {}: lock is held by another node", name);
+            return false;
+        }
+
+        long startNanos = System.nanoTime();
+        try {
+            task.run();
+            return true;
+        } finally {
+            Timer.builder("attendance.scheduler.lock.held")
+                    .description("Time a node held a scheduled job lock")
+                    .tag("job", name)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            release(name, lockedAt.plus(lockAtLeastFor));
+        }
+    }
+
+    private boolean tryAcquire(String name, LocalDateTime now, LocalDateTime lockUntil) {
+        int updated = jdbcTemplate.update(ACQUIRE_SQL, Timestamp.valueOf(lockUntil), Timestamp.valueOf(now),
+                nodeIdentity.getId(), name, Timestamp.valueOf(now));
+        if (updated > 0) {
+            return true;
+        }
+        try {
+            jdbcTemplate.update(INSERT_SQL, name, Timestamp.valueOf(lockUntil), Timestamp.valueOf(now),
+                    nodeIdentity.getId());
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    private void release(String name, LocalDateTime lockedAtLeastUntil) {
+        LocalDateTime until = LocalDateTime.now().isAfter(lockedAtLeastUntil) ? LocalDateTime.now() : lockedAtLeastUntil;
+        jdbcTemplate.update(RELEASE_SQL, Timestamp.valueOf(until), name, nodeIdentity.getId());
+    }
+}
@@ -0,0 +1,153 @@
+package com.college.attendance.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps this node's outgoing mail inside the SMTP provider's sending limits
+ * with two token buckets, one refilled per minute and one per day. Every
+ * {@code JavaMailSender.send} takes one token per message first. Waiting
+ * senders are served strictly by lane, so a login OTP never queues behind a
+ * broadcast, and the last {@code otp-reserve} tokens of the daily quota are
+ * kept for OTPs alone. Limits are per node; divide the provider's quota
+ * between nodes when running more than one.
+ */
+@Service
+@RequiredArgsConstructor
+public class SmtpRateGovernor {
+
+    // In priority order; ATTENDANCE covers every outbox notification except broadcasts
+    public enum Lane {
+        OTP,
+        ATTENDANCE,
+        BROADCAST
+    }
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.mail.rate.per-minute:60}")
+    private int perMinute;
+
+    @Value("${app.mail.rate.per-day:2000}")
+    private int perDay;
+
+    @Value("${app.mail.rate.otp-reserve:100}")
+    private int otpReserve;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final int[] waiting = new int[Lane.values().length];
+    private final Map<Lane, Timer> waitTimers = new EnumMap<>(Lane.class);
+
+    private double minuteTokens;
+    private double dayTokens;
+    private long refilledAtNanos;
+
+    @PostConstruct
+    public void init() {
+        minuteTokens = perMinute;
+        dayTokens = perDay;
+        refilledAtNanos = System.nanoTime();
+
+        Gauge.builder("attendance.mail.quota.remaining", this, governor -> governor.remaining(false))
+                .description("Messages that can be sent now within the per-minute limit")
+                .tag("window", "minute")
+                .register(meterRegistry);
+        Gauge.builder("attendance.mail.quota.remaining", this, governor -> governor.remaining(true))
+                .description("Messages left in the rolling daily quota")
+                .tag("window", "day")
+                .register(meterRegistry);
+        for (Lane lane : Lane.values()) {
+            waitTimers.put(lane, Timer.builder("attendance.mail.rate.wait")
+                    .description("Time a message waited for sending quota")
+                    .tag("lane", lane.name().toLowerCase())
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry));
+            Gauge.builder("attendance.mail.rate.waiting", waiting, counts -> counts[lane.ordinal()])
+                    .description("Messages currently waiting for sending quota")
+                    .tag("lane", lane.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Take a token for one message, waiting at most {@code maxWait} behind the
+     * quota and behind senders in higher lanes.
+     *
+     * @return whether the message may be sent now
+     */
+    public boolean acquire(Lane lane, Duration maxWait) throws InterruptedException {
+        long startNanos = System.nanoTime();
+        long deadline = startNanos + maxWait.toNanos();
+        lock.lock();
+        waiting[lane.ordinal()]++;
+        try {
+            while (true) {
+                refill();
+                double needed = 1 + (lane == Lane.OTP ? 0 : otpReserve);
+                if (!higherLaneWaiting(lane) && minuteTokens >= 1 && dayTokens >= needed) {
+                    minuteTokens--;
+                    dayTokens--;
+                    waitTimers.get(lane).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                    return true;
+                }
+                long remainingNanos = deadline - System.nanoTime();
+                if (remainingNanos <= 0) {
+                    return false;
+                }
+                // Woken early when a higher lane is served or leaves, otherwise when the next token is due
+                changed.awaitNanos(Math.min(remainingNanos, nanosUntil(needed)));
+            }
+        } finally {
+            waiting[lane.ordinal()]--;
+            changed.signalAll();
+            lock.unlock();
+        }
+    }
+
+    private boolean higherLaneWaiting(Lane lane) {
+        for (int i = 0; i < lane.ordinal(); i++) {
+            if (waiting[i] > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Time until both buckets hold enough tokens, ignoring other waiters
+    private long nanosUntil(double dayTokensNeeded) {
+        double minuteNanos = Math.max(0, 1 - minuteTokens) * TimeUnit.MINUTES.toNanos(1) / perMinute;
+        double dayNanos = Math.max(0, dayTokensNeeded - dayTokens) * TimeUnit.DAYS.toNanos(1) / perDay;
+        return Math.max(1, (long) Math.ceil(Math.max(minuteNanos, dayNanos)));
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        long elapsed = now - refilledAtNanos;
+        refilledAtNanos = now;
+        minuteTokens = Math.min(perMinute, minuteTokens + (double) elapsed * perMinute / TimeUnit.MINUTES.toNanos(1));
+        dayTokens = Math.min(perDay, dayTokens + (double) elapsed * perDay / TimeUnit.DAYS.toNanos(1));
+    }
+
+    private double remaining(boolean day) {
+        lock.lock();
+        try {
+            refill();
+            return Math.floor(day ? dayTokens : minuteTokens);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.college.attendance.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * The few statements that differ between the databases this app runs on.
+ */
+@Component
+@RequiredArgsConstructor
+public class SqlDialect {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private String product;
+
+    @PostConstruct
+    public void init() {
+        product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+    }
+
+    /**
+     * Turn a plain INSERT into one that skips rows whose key already exists, so a
+     * concurrent insert by another node or transaction cannot abort the batch.
+     */
+    public String insertIgnoringDuplicates(String insert) {
+        if ("PostgreSQL".equalsIgnoreCase(product)) {
+            return insert + " ON CONFLICT DO NOTHING";
+        } else if ("MySQL".equalsIgnoreCase(product)) {
+            return insert.replace("INSERT INTO", "INSERT IGNORE INTO");
+        }
+        return insert;
+    }
+
+    /**
+     * Turn a single-row INSERT into one that, when {@code keyColumn} already
+     * exists, overwrites {@code updatedColumns} with the inserted values instead,
+     * so concurrent writers of the same key cannot fail on the unique constraint.
+     */
+    public String upsert(String insert, String keyColumn, String... updatedColumns) {
+        StringBuilder sql = new StringBuilder(insert);
+        if ("PostgreSQL".equalsIgnoreCase(product)) {
+            sql.append(" ON CONFLICT (").append(keyColumn).append(") DO UPDATE SET ");
+            for (int i = 0; i < updatedColumns.length; i++) {
+                sql.append(i > 0 ? ", " : "").append(updatedColumns[i]).append(" = EXCLUDED.").append(updatedColumns[i]);
+            }
+        } else if ("MySQL".equalsIgnoreCase(product)) {
+            sql.append(" ON DUPLICATE KEY UPDATE ");
+            for (int i = 0; i < updatedColumns.length; i++) {
+                sql.append(i > 0 ? ", " : "").append(updatedColumns[i])
+                        .append(" = VALUES(").append(updatedColumns[i]).append(")");
+            }
+        }
+        return sql.toString();
+    }
+}
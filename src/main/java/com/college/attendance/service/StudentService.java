@@ -2,17 +2,27 @@ package com.college.attendance.service;
 
 import com.college.attendance.dto.StudentRequest;
 import com.college.attendance.dto.StudentResponse;
+import com.college.attendance.entity.AttendanceDay;
 import com.college.attendance.entity.Student;
+import com.college.attendance.event.PausesExpiredEvent;
+import com.college.attendance.event.StudentChangedEvent;
+import com.college.attendance.event.StudentChangedEvent.Change;
 import com.college.attendance.entity.Student.StudentStatus;
+import com.college.attendance.repository.AttendanceDayRepository;
 import com.college.attendance.repository.StudentRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,7 +31,12 @@ import java.util.stream.Collectors;
 public class StudentService {
 
     private final StudentRepository studentRepository;
+    private final AttendanceDayRepository attendanceDayRepository;
+    private final EligibilityIndex eligibilityIndex;
+    private final AttendanceWorkQueue workQueue;
+    private final IdempotencyLedger ledger;
     private final EmailService emailService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public StudentResponse registerStudent(StudentRequest request) {
@@ -48,6 +63,7 @@ public class StudentService {
 
         Student savedStudent = studentRepository.save(student);
         log.info("Student registered successfully: {}", savedStudent.getSic());
+        afterCommit(() -> eligibilityIndex.studentSaved(savedStudent));
 
         return mapToResponse(savedStudent);
     }
@@ -58,6 +74,9 @@ public class StudentService {
 
         Student student = studentRepository.findBySic(sic)
                 .orElseThrow(() -> new RuntimeException("Student not found with SIC: " + sic));
+        List<Change> changes = new ArrayList<>();
+        StudentStatus statusBefore = student.getStatus();
+        LocalDate pauseTillBefore = student.getPauseTill();
 
         if (request.getEmail() != null && !request.getEmail().equals(student.getEmail())) {
             if (studentRepository.existsByEmail(request.getEmail())) {
@@ -66,13 +85,9 @@ public class StudentService {
             String oldEmail = student.getEmail();
             student.setEmail(request.getEmail());
             
-            // Send email notification about email change
-            emailService.sendChangeNotification(
-                request.getEmail(), 
-                student.getSic(), 
-                "Email Changed", 
-                "Your email has been changed from " + oldEmail + " to " + request.getEmail()
-            );
+            // Notify the student about the email change
+            changes.add(new Change("Email Changed",
+                    "Your email has been changed from " + oldEmail + " to " + request.getEmail()));
         }
 
         // Enhanced pause and status logic
@@ -89,14 +104,10 @@ public class StudentService {
             
             student.setStatus(newStatus);
             
-            // Send notification about status change
+            // Notify the student about the status change
             if (oldStatus != newStatus) {
-                emailService.sendChangeNotification(
-                    student.getEmail(),
-                    student.getSic(),
-                    "Account Status Changed",
-                    "Your account status has been changed from " + oldStatus + " to " + newStatus
-                );
+                changes.add(new Change("Account Status Changed",
+                    "Your account status has been changed from " + oldStatus + " to " + newStatus));
             }
         }
 
@@ -107,26 +118,18 @@ public class StudentService {
                 student.setPauseTill(request.getPauseTill());
                 log.info("PauseTill date set for SIC: {}, status is PAUSED", sic);
                 
-                // Send notification about pause date
-                emailService.sendChangeNotification(
-                    student.getEmail(),
-                    student.getSic(),
-                    "Pause Date Set",
-                    "Your account has been paused until " + request.getPauseTill()
-                );
+                // Notify the student about the pause date
+                changes.add(new Change("Pause Date Set",
+                    "Your account has been paused until " + request.getPauseTill()));
             } else if (student.getStatus() != StudentStatus.ACTIVE && student.getStatus() != StudentStatus.DEACTIVATED) {
                 // If status is not explicitly set, set it to PAUSED
                 student.setPauseTill(request.getPauseTill());
                 student.setStatus(StudentStatus.PAUSED);
                 log.info("PauseTill date set for SIC: {}, status changed to PAUSED", sic);
                 
-                // Send notification about pause date
-                emailService.sendChangeNotification(
-                    student.getEmail(),
-                    student.getSic(),
-                    "Pause Date Set",
-                    "Your account has been paused until " + request.getPauseTill()
-                );
+                // Notify the student about the pause date
+                changes.add(new Change("Pause Date Set",
+                    "Your account has been paused until " + request.getPauseTill()));
             }
             // If status is ACTIVE or DEACTIVATED, ignore the pauseTill from request
         }
@@ -137,27 +140,34 @@ public class StudentService {
             student.setAttendanceCount(request.getAttendanceCount());
             
             if (!oldCount.equals(request.getAttendanceCount())) {
-                emailService.sendChangeNotification(
-                    student.getEmail(),
-                    student.getSic(),
-                    "Attendance Count Updated",
-                    "Your attendance count has been updated from " + oldCount + " to " + request.getAttendanceCount()
-                );
+                changes.add(new Change("Attendance Count Updated",
+                    "Your attendance count has been updated from " + oldCount + " to " + request.getAttendanceCount()));
             }
         }
         
-        // Allow admin to update isTaken flag
-        if (request.getIsTaken() != null) {
-            student.setIsTaken(request.getIsTaken());
+        // Today's queue row follows eligibility, so a run already under way neither marks a student
+        // paused or deactivated since the window opened nor misses one reactivated today
+        LocalDate today = LocalDate.now();
+        if (student.getStatus() != statusBefore || !Objects.equals(student.getPauseTill(), pauseTillBefore)) {
+            if (student.isEligibleOn(today)) {
+                workQueue.reopen(today, student.getSlNo(), LocalDateTime.now());
+            } else {
+                workQueue.complete(today, student.getSlNo(), LocalDateTime.now());
+            }
         }
-        
-        // Allow admin to update isVerified flag
-        if (request.getIsVerified() != null) {
-            student.setIsVerified(request.getIsVerified());
+
+        // Allow admin to update today's isTaken and isVerified state
+        if (request.getIsTaken() != null || request.getIsVerified() != null) {
+            updateTodayAttendance(student, request.getIsTaken(), request.getIsVerified());
         }
 
         Student updatedStudent = studentRepository.save(student);
         log.info("Student updated successfully: {}", updatedStudent.getSic());
+        afterCommit(() -> eligibilityIndex.studentSaved(updatedStudent));
+        if (!changes.isEmpty()) {
+            // Queued in this transaction, merged with any other edits made within a short window
+            eventPublisher.publishEvent(new StudentChangedEvent(updatedStudent.getSic(), updatedStudent.getEmail(), changes));
+        }
 
         return mapToResponse(updatedStudent);
     }
@@ -178,70 +188,107 @@ public class StudentService {
     public void deleteStudent(String sic) {
         Student student = studentRepository.findBySic(sic)
                 .orElseThrow(() -> new RuntimeException("Student not found with SIC: " + sic));
+        attendanceDayRepository.deleteBySlNo(student.getSlNo());
         studentRepository.delete(student);
         log.info("Student deleted: {}", sic);
+        afterCommit(() -> eligibilityIndex.studentDeleted(student.getSlNo()));
     }
 
+    /**
+     * Reactivate students whose pause has expired with a single bulk update. The
+     * matching rows are locked first so the published SIC list is exactly the set updated.
+     */
     @Transactional
-    public void resetDailyFlags() {
-        log.info("Resetting daily flags for all students");
+    public List<String> updateExpiredPauses() {
+        log.info("Updating students with expired pause dates");
         LocalDate today = LocalDate.now();
-        List<Student> students = studentRepository.findAll();
-        
-        int resetCount = 0;
-        for (Student student : students) {
-            // Check if takenOn exists and is not today's date
-            if (student.getTakenOn() != null) {
-                LocalDate takenDate = student.getTakenOn().toLocalDate();
-                
-                // If attendance was taken on a different day, reset the flags
-                if (!takenDate.isEqual(today)) {
-                    student.setIsTaken(false);
-                    student.setIsVerified(false);
-                    resetCount++;
-                    log.debug("Resetting flags for SIC: {} (last taken: {})", student.getSic(), takenDate);
-                }
+        List<String> sics = studentRepository.lockSicsWithExpiredPause(today);
+        if (sics.isEmpty()) {
+            log.info("Updated 0 students from PAUSED to ACTIVE");
+            return sics;
+        }
+
+        int updated = studentRepository.activateExpiredPauses(today);
+        log.info("Updated {} students from PAUSED to ACTIVE", updated);
+
+        eventPublisher.publishEvent(new PausesExpiredEvent(today, sics));
+        return sics;
+    }
+
+    /**
+     * Apply an admin edit to today's attendance_day row, touching it only when the
+     * requested state differs. Clearing isTaken also clears the retry state,
+     * reopens the work queue and ledger entries and frees the day's attendance
+     * email keys, so the next tick marks and notifies the student again.
+     */
+    private void updateTodayAttendance(Student student, Boolean isTaken, Boolean isVerified) {
+        LocalDate today = LocalDate.now();
+        LocalDateTime now = LocalDateTime.now();
+        AttendanceDay day = attendanceDayRepository.findById(new AttendanceDay.Key(today, student.getSlNo()))
+                .orElseGet(() -> new AttendanceDay(today, student.getSlNo()));
+        boolean changed = false;
+
+        if (isTaken != null && isTaken != (day.getMarkedAt() != null)) {
+            if (isTaken) {
+                day.setMarkedAt(now);
+                student.setTakenOn(now);
+                workQueue.complete(today, student.getSlNo(), now);
             } else {
-                // If takenOn is null but flags are set, reset them
-                if (student.getIsTaken() || student.getIsVerified()) {
-                    student.setIsTaken(false);
-                    student.setIsVerified(false);
-                    resetCount++;
-                    log.debug("Resetting flags for SIC: {} (takenOn is null)", student.getSic());
-                }
+                workQueue.reopen(today, student.getSlNo(), now);
+                ledger.reset(student.getSic(), today);
+                emailService.forgetAttendanceEmails(student.getSic(), today);
+                day.setMarkedAt(null);
+                day.setVerifiedAt(null);
+                day.setMarkAttempts(0);
+                day.setNextAttemptAt(null);
+                student.setIsVerified(false);
             }
+            student.setIsTaken(isTaken);
+            changed = true;
+        }
+
+        if (isVerified != null && isVerified != (day.getVerifiedAt() != null)) {
+            day.setVerifiedAt(isVerified ? now : null);
+            student.setIsVerified(isVerified);
+            changed = true;
+        }
+
+        if (changed) {
+            attendanceDayRepository.save(day);
+            boolean taken = day.getMarkedAt() != null;
+            boolean verified = day.getVerifiedAt() != null;
+            afterCommit(() -> eligibilityIndex.todayChanged(student.getSlNo(), today, taken, verified));
         }
-        
-        studentRepository.saveAll(students);
-        log.info("Daily flags reset for {} out of {} students", resetCount, students.size());
     }
 
-    @Transactional
-    public void updateExpiredPauses() {
-        log.info("Updating students with expired pause dates");
-        LocalDate today = LocalDate.now();
-        List<Student> students = studentRepository.findStudentsWithExpiredPause(today);
-        
-        students.forEach(student -> {
-            student.setStatus(StudentStatus.ACTIVE);
-            student.setPauseTill(null);
+    // The eligibility index must only see changes that were actually committed
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
         });
-        
-        studentRepository.saveAll(students);
-        log.info("Updated {} students from PAUSED to ACTIVE", students.size());
     }
 
-    private StudentResponse mapToResponse(Student student) {
+    StudentResponse mapToResponse(Student student) {
         StudentResponse response = new StudentResponse();
         response.setSlNo(student.getSlNo());
         response.setSic(student.getSic());
         response.setEmail(student.getEmail());
         response.setAddedOn(student.getAddedOn());
         response.setAttendanceCount(student.getAttendanceCount());
-        response.setIsTaken(student.getIsTaken());
+        // The mirrored flags only describe today if the last mark was today
+        boolean takenToday = student.getTakenOn() != null
+                && student.getTakenOn().toLocalDate().equals(LocalDate.now());
+        response.setIsTaken(takenToday && Boolean.TRUE.equals(student.getIsTaken()));
         response.setStatus(student.getStatus());
         response.setPauseTill(student.getPauseTill());
-        response.setIsVerified(student.getIsVerified());
+        response.setIsVerified(takenToday && Boolean.TRUE.equals(student.getIsVerified()));
         response.setTakenOn(student.getTakenOn());
         return response;
     }
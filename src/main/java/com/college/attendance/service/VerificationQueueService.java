@@ -0,0 +1,227 @@
+package com.college.attendance.service;
+
+import com.college.attendance.repository.PendingVerificationRepository;
+import com.college.attendance.service.AttendanceApiService.ErpUnavailableException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durable delay queue for attendance verifications.
+ * Due times live in the pending_verifications table and a single timer thread
+ * drains whatever is due in batches, so pending work survives restarts.
+ * Every node drains the same table: due rows are claimed with
+ * {@code FOR UPDATE SKIP LOCKED} under a lease, so no two nodes verify the same
+ * student, and a crashed node's claims become claimable once the lease expires.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VerificationQueueService {
+
+    private static final String CLAIM_SQL =
+            "SELECT id, sic, due_at FROM pending_verifications WHERE due_at <= ? " +
+            "AND (lease_until IS NULL OR lease_until < ?) ORDER BY due_at, id LIMIT ? FOR UPDATE SKIP LOCKED";
+    private static final String LEASE_SQL =
+            "UPDATE pending_verifications SET lease_owner = ?, lease_until = ? WHERE id = ?";
+    private static final String RELEASE_SQL =
+            "UPDATE pending_verifications SET lease_owner = NULL, lease_until = NULL " +
+            "WHERE id = ? AND lease_owner = ?";
+    // A re-enqueue during the run moved due_at; that newer verification must stay queued
+    private static final String DELETE_SQL =
+            "DELETE FROM pending_verifications WHERE id = ? AND due_at = ?";
+
+    private final PendingVerificationRepository pendingVerificationRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SqlDialect sqlDialect;
+    private final NodeIdentity nodeIdentity;
+    private final AttendanceMarkingEngine markingEngine;
+    private final ObjectProvider<AttendanceSchedulerService> schedulerService;
+    private final ConnectionPoolMonitor poolMonitor;
+    private final AttendanceResultSink resultSink;
+
+    @Value("${app.attendance.verification-batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.attendance.verification-poll-seconds:60}")
+    private int pollSeconds;
+
+    @Value("${app.attendance.verification-retry-minutes:1}")
+    private int retryMinutes;
+
+    @Value("${app.attendance.verification-lease-seconds:300}")
+    private long leaseSeconds;
+
+    private String enqueueSql;
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "verification-queue");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ScheduledFuture<?> nextWake;
+    private LocalDateTime nextWakeAt;
+
+    @PostConstruct
+    public void init() {
+        // One row per student; enqueueing again moves the due time and drops any lease
+        enqueueSql = sqlDialect.upsert("INSERT INTO pending_verifications " +
+                "(sic, due_at, lease_owner, lease_until, created_at) VALUES (?, ?, NULL, NULL, ?)",
+                "sic", "due_at", "lease_owner", "lease_until");
+    }
+
+    // Reload the queue after a restart and keep a periodic poll as a safety net
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        log.info("Resuming verification queue with {} pending verifications", pendingVerificationRepository.count());
+        timer.scheduleWithFixedDelay(this::drain, 0, pollSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    public void enqueue(String sic, int delayMinutes) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime dueAt = now.plusMinutes(delayMinutes);
+        jdbcTemplate.update(enqueueSql, sic, Timestamp.valueOf(dueAt), Timestamp.valueOf(now));
+
+        log.info("Queued verification for SIC: {} due at {}", sic, dueAt);
+        scheduleWake(dueAt);
+    }
+
+    private synchronized void scheduleWake(LocalDateTime dueAt) {
+        if (nextWakeAt != null && !dueAt.isBefore(nextWakeAt)) {
+            return;
+        }
+        if (nextWake != null) {
+            nextWake.cancel(false);
+        }
+        long delayMillis = Math.max(0, Duration.between(LocalDateTime.now(), dueAt).toMillis());
+        nextWakeAt = dueAt;
+        nextWake = timer.schedule(this::drain, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void drain() {
+        synchronized (this) {
+            nextWakeAt = null;
+        }
+
+        try {
+            List<ClaimedVerification> due;
+            while (!(due = claim()).isEmpty()) {
+                log.info("Running {} due verifications", due.size());
+                poolMonitor.logUsage("before verify run");
+
+                Queue<String> deferred = new ConcurrentLinkedQueue<>();
+                AttendanceMarkingEngine.Run run = markingEngine.start("verify");
+                for (int i = 0; i < due.size(); i++) {
+                    ClaimedVerification pending = due.get(i);
+                    if (!run.submit(pending.getSic(), () -> verify(pending.getSic(), deferred))) {
+                        release(due.subList(i, due.size()));
+                        return;
+                    }
+                }
+                run.await();
+                resultSink.flush();
+                poolMonitor.logUsage("after verify run");
+
+                delete(due);
+
+                // Verifications the ERP was too unhealthy to attempt go back on the queue
+                for (String sic : deferred) {
+                    enqueue(sic, retryMinutes);
+                }
+            }
+
+            pendingVerificationRepository.findFirstByOrderByDueAtAsc()
+                    .ifPresent(next -> scheduleWake(next.getDueAt()));
+        } catch (Exception e) {
+            log.error("Error draining verification queue", e);
+        }
+    }
+
+    /**
+     * Claim up to a batch of due verifications for this node under a lease.
+     * Rows claimed by another node are skipped, not waited on.
+     */
+    private List<ClaimedVerification> claim() {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp leaseUntil = Timestamp.valueOf(now.plusSeconds(leaseSeconds));
+        return transactionTemplate.execute(status -> {
+            List<ClaimedVerification> claimed = jdbcTemplate.query(CLAIM_SQL,
+                    (rs, rowNum) -> new ClaimedVerification(rs.getLong("id"), rs.getString("sic"),
+                            rs.getTimestamp("due_at")),
+                    Timestamp.valueOf(now), Timestamp.valueOf(now), batchSize);
+            List<Object[]> leases = new ArrayList<>(claimed.size());
+            for (ClaimedVerification pending : claimed) {
+                leases.add(new Object[]{nodeIdentity.getId(), leaseUntil, pending.getId()});
+            }
+            if (!leases.isEmpty()) {
+                jdbcTemplate.batchUpdate(LEASE_SQL, leases);
+            }
+            return claimed;
+        });
+    }
+
+    // Hand back claims this node will not run, so other nodes need not wait for the lease
+    private void release(List<ClaimedVerification> claimed) {
+        List<Object[]> args = new ArrayList<>(claimed.size());
+        for (ClaimedVerification pending : claimed) {
+            args.add(new Object[]{pending.getId(), nodeIdentity.getId()});
+        }
+        if (!args.isEmpty()) {
+            jdbcTemplate.batchUpdate(RELEASE_SQL, args);
+        }
+    }
+
+    private void delete(List<ClaimedVerification> done) {
+        List<Object[]> args = new ArrayList<>(done.size());
+        for (ClaimedVerification pending : done) {
+            args.add(new Object[]{pending.getId(), pending.getDueAt()});
+        }
+        jdbcTemplate.batchUpdate(DELETE_SQL, args);
+    }
+
+    private boolean verify(String sic, Queue<String> deferred) {
+        try {
+            return schedulerService.getObject().verifyAttendance(sic);
+        } catch (ErpUnavailableException e) {
+            log.warn("Deferring verification for SIC: {} ({})", sic, e.getMessage());
+            deferred.add(sic);
+            return false;
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static class ClaimedVerification {
+        private final Long id;
+        private final String sic;
+        private final Timestamp dueAt;
+    }
+}
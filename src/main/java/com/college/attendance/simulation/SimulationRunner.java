@@ -0,0 +1,193 @@
+package com.college.attendance.simulation;
+
+import com.college.attendance.service.AttendanceResultSink;
+import com.college.attendance.service.AttendanceSchedulerService;
+import com.college.attendance.service.EligibilityIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives the real marking pipeline against the stub ERP and the SMTP sink.
+ * For each roster size it wipes the attendance tables, seeds synthetic students,
+ * runs {@code markAttendanceForEligibleStudents} until every student is marked
+ * or out of retries and all verifications and emails are done, then reports the numbers.
+ * Retry and verification delays are shortened in application-simulation.properties
+ * so a whole evening fits in a few minutes.
+ */
+@Component
+@Profile("simulation")
+@RequiredArgsConstructor
+@Slf4j
+public class SimulationRunner implements ApplicationRunner {
+
+    private static final String[] TABLES = {
+            "attendance_runs", "attendance_ledger", "attendance_queue", "attendance_day",
+            "pending_verifications", "email_outbox", "students"
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AttendanceSchedulerService schedulerService;
+    private final AttendanceResultSink resultSink;
+    private final EligibilityIndex eligibilityIndex;
+    private final MeterRegistry meterRegistry;
+    private final StubErpServer erpServer;
+    private final SmtpSink smtpSink;
+    private final ConfigurableApplicationContext context;
+
+    @Value("${app.simulation.sizes:1000,10000,100000}")
+    private List<Integer> sizes;
+
+    @Value("${app.simulation.reset-database:false}")
+    private boolean resetDatabase;
+
+    @Value("${app.simulation.timeout-minutes:60}")
+    private long timeoutMinutes;
+
+    @Value("${app.simulation.report-file:simulation-report.txt}")
+    private String reportFile;
+
+    @Value("${app.simulation.exit-when-done:true}")
+    private boolean exitWhenDone;
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        if (!resetDatabase) {
+            log.error("Simulation truncates the attendance tables; set app.simulation.reset-database=true " +
+                    "and point the datasource at a scratch database to run it");
+            return;
+        }
+
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("%-8s %10s %10s %10s %10s %10s %10s %12s %12s %10s %11s",
+                "students", "duration_s", "erp_p50_ms", "erp_p95_ms", "erp_p99_ms", "erp_calls", "erp_errors",
+                "pool_wait_ms", "pool_max_ms", "emails/s", "smtp_errors"));
+        for (int size : sizes) {
+            lines.add(simulate(size));
+        }
+
+        lines.forEach(log::info);
+        Files.write(Path.of(reportFile), lines);
+        log.info("Simulation report written to {}", Path.of(reportFile).toAbsolutePath());
+
+        if (exitWhenDone) {
+            System.exit(SpringApplication.exit(context, () -> 0));
+        }
+    }
+
+    private String simulate(int size) {
+        reset();
+        seed(size);
+        eligibilityIndex.start();
+
+        Timer erpTimer = meterRegistry.find("attendance.erp.latency").timer();
+        Timer poolTimer = meterRegistry.find("hikaricp.connections.acquire").timer();
+        long erpCallsBefore = erpTimer != null ? erpTimer.count() : 0;
+        long poolCountBefore = poolTimer != null ? poolTimer.count() : 0;
+        double poolTimeBefore = poolTimer != null ? poolTimer.totalTime(TimeUnit.MILLISECONDS) : 0;
+        long erpErrorsBefore = erpServer.getErrors();
+        long emailsBefore = smtpSink.getMessages();
+        long smtpErrorsBefore = smtpSink.getErrors();
+
+        log.info("Simulating attendance for {} students", size);
+        long startNanos = System.nanoTime();
+        long deadline = startNanos + TimeUnit.MINUTES.toNanos(timeoutMinutes);
+        while (System.nanoTime() < deadline) {
+            schedulerService.markAttendanceForEligibleStudents();
+            resultSink.flush();
+            if (openWork() == 0) {
+                break;
+            }
+            sleep();
+        }
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+
+        long erpCalls = erpTimer != null ? erpTimer.count() - erpCallsBefore : 0;
+        long poolAcquires = poolTimer != null ? poolTimer.count() - poolCountBefore : 0;
+        double poolWait = poolTimer != null && poolAcquires > 0
+                ? (poolTimer.totalTime(TimeUnit.MILLISECONDS) - poolTimeBefore) / poolAcquires : 0;
+        double poolMax = poolTimer != null ? poolTimer.max(TimeUnit.MILLISECONDS) : 0;
+        double emailsPerSecond = (smtpSink.getMessages() - emailsBefore) / seconds;
+
+        return String.format("%-8d %10.1f %10.1f %10.1f %10.1f %10d %10d %12.2f %12.1f %10.1f %11d",
+                size, seconds, percentile(erpTimer, 0.5), percentile(erpTimer, 0.95), percentile(erpTimer, 0.99),
+                erpCalls, erpServer.getErrors() - erpErrorsBefore, poolWait, poolMax, emailsPerSecond,
+                smtpSink.getErrors() - smtpErrorsBefore);
+    }
+
+    private void reset() {
+        for (String table : TABLES) {
+            jdbcTemplate.execute("TRUNCATE TABLE " + table);
+        }
+    }
+
+    private void seed(int size) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(1000);
+        for (int i = 1; i <= size; i++) {
+            // SICs are unique per size so the in-memory ledger of an earlier size does not skip them
+            String sic = "SIM" + size + "-" + i;
+            rows.add(new Object[]{sic, sic.toLowerCase() + "@simulation.local", now, 0, false, "ACTIVE", false});
+            if (rows.size() == 1000 || i == size) {
+                jdbcTemplate.batchUpdate("INSERT INTO students (sic, email, added_on, attendance_count, is_taken, " +
+                        "status, is_verified) VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+                rows.clear();
+            }
+        }
+        log.info("Seeded {} synthetic students", size);
+    }
+
+    // Students still queued for marking, verifications not yet run and emails not yet sent
+    private long openWork() {
+        Long queued = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM attendance_queue WHERE attendance_date = ? AND completed_at IS NULL",
+                Long.class, Date.valueOf(LocalDate.now()));
+        Long verifications = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pending_verifications", Long.class);
+        Long emails = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM email_outbox WHERE status = 'PENDING'",
+                Long.class);
+        return (queued != null ? queued : 0) + (verifications != null ? verifications : 0)
+                + (emails != null ? emails : 0);
+    }
+
+    // Percentiles come from the timer's rolling window, which covers the tail of each size's run
+    private static double percentile(Timer timer, double percentile) {
+        if (timer == null) {
+            return 0;
+        }
+        for (ValueAtPercentile value : timer.takeSnapshot().percentileValues()) {
+            if (value.percentile() == percentile) {
+                return value.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        return 0;
+    }
+
+    private static void sleep() {
+        try {
+            TimeUnit.SECONDS.sleep(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.college.attendance.simulation;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Minimal in-process SMTP server that counts the messages it accepts, so the
+ * simulation can send real mail through JavaMailSender without reaching Gmail.
+ * Each message is answered after a configurable latency, and rejected with a
+ * transient 451 at the configured rate so the outbox retry path is exercised.
+ */
+@Component
+@Profile("simulation")
+@Slf4j
+public class SmtpSink {
+
+    @Value("${app.simulation.smtp.port:12525}")
+    private int port;
+
+    @Value("${app.simulation.smtp.latency-ms:0}")
+    private long latencyMillis;
+
+    @Value("${app.simulation.smtp.jitter-ms:0}")
+    private long jitterMillis;
+
+    @Value("${app.simulation.smtp.error-rate:0}")
+    private double errorRate;
+
+    private final AtomicLong messages = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong connections = new AtomicLong();
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "smtp-sink");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ServerSocket serverSocket;
+
+    @PostConstruct
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        executor.execute(this::acceptLoop);
+        log.info("SMTP sink listening on port {} (latency {} ms +/- {} ms, error rate {})",
+                port, latencyMillis, jitterMillis, errorRate);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+
+    public long getMessages() {
+        return messages.get();
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+
+    public long getConnections() {
+        return connections.get();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.incrementAndGet();
+                executor.execute(() -> session(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    log.warn("SMTP sink accept failed", e);
+                }
+            }
+        }
+    }
+
+    private void session(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             OutputStream out = socket.getOutputStream()) {
+            reply(out, "220 localhost SMTP sink");
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                switch (command) {
+                    case "EHLO" -> reply(out, "250-localhost\r\n250-8BITMIME\r\n250 SMTPUTF8");
+                    case "HELO", "MAIL", "RCPT", "RSET", "NOOP" -> reply(out, "250 OK");
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            // Message content is discarded
+                        }
+                        pause();
+                        if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                            errors.incrementAndGet();
+                            reply(out, "451 4.3.0 Simulated temporary failure");
+                        } else {
+                            messages.incrementAndGet();
+                            reply(out, "250 OK queued");
+                        }
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (IOException e) {
+            log.debug("SMTP sink session ended", e);
+        }
+    }
+
+    private void pause() throws IOException {
+        long latency = latencyMillis + (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0);
+        if (latency <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(latency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("SMTP sink stopped", e);
+        }
+    }
+
+    private static void reply(OutputStream out, String response) throws IOException {
+        out.write((response + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+}
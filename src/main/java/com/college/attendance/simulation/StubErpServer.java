@@ -0,0 +1,113 @@
+package com.college.attendance.simulation;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for the college ERP attendance endpoint. Every request answers
+ * after a configurable latency and fails with a 503 at the configured rate.
+ * The slowdown profile changes latency over time:
+ * {@code none}, {@code ramp} (one more base latency per minute) or
+ * {@code spike} (ten times slower for 5 s out of every 30 s).
+ */
+@Component
+@Profile("simulation")
+@Slf4j
+public class StubErpServer {
+
+    @Value("${app.simulation.erp.port:18081}")
+    private int port;
+
+    @Value("${app.simulation.erp.latency-ms:200}")
+    private long latencyMillis;
+
+    @Value("${app.simulation.erp.jitter-ms:100}")
+    private long jitterMillis;
+
+    @Value("${app.simulation.erp.error-rate:0.02}")
+    private double errorRate;
+
+    @Value("${app.simulation.erp.slowdown:none}")
+    private String slowdown;
+
+    @Value("${app.simulation.erp.threads:64}")
+    private int threads;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private long startNanos;
+
+    @PostConstruct
+    public void start() throws IOException {
+        executor = Executors.newFixedThreadPool(threads);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        startNanos = System.nanoTime();
+        server.start();
+        log.info("Stub ERP listening on port {} (latency {} ms +/- {} ms, error rate {}, slowdown {})",
+                port, latencyMillis, jitterMillis, errorRate, slowdown);
+    }
+
+    @PreDestroy
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            TimeUnit.MILLISECONDS.sleep(currentLatencyMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        boolean fail = ThreadLocalRandom.current().nextDouble() < errorRate;
+        if (fail) {
+            errors.incrementAndGet();
+        }
+        byte[] body = (fail ? "ERP unavailable" : "Attendance recorded").getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(fail ? 503 : 200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private long currentLatencyMillis() {
+        long latency = latencyMillis + (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0);
+        long elapsedSeconds = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startNanos);
+        return switch (slowdown) {
+            case "ramp" -> latency + latencyMillis * (elapsedSeconds / 60);
+            case "spike" -> elapsedSeconds % 30 < 5 ? latency * 10 : latency;
+            default -> latency;
+        };
+    }
+}
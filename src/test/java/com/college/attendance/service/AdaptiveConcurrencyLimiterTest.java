@@ -0,0 +1,118 @@
+package com.college.attendance.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(5);
+
+    @Test
+    void clampsTheInitialLimitToTheBounds() {
+        assertThat(new AdaptiveConcurrencyLimiter(50, 2, 10, 1000).getLimit()).isEqualTo(10);
+        assertThat(new AdaptiveConcurrencyLimiter(0, 2, 10, 1000).getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void grantsPermitsUpToTheLimitThenQueues() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 1000);
+
+        assertThat(limiter.acquire(1, TimeUnit.SECONDS)).isCompleted();
+        assertThat(limiter.acquire(1, TimeUnit.SECONDS)).isCompleted();
+        CompletableFuture<Void> third = limiter.acquire(1, TimeUnit.SECONDS);
+
+        assertThat(third).isNotDone();
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+    }
+
+    @Test
+    void handsAReturnedPermitToTheOldestWaiter() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 1000);
+        limiter.acquire(1, TimeUnit.SECONDS);
+        CompletableFuture<Void> first = limiter.acquire(1, TimeUnit.SECONDS);
+        CompletableFuture<Void> second = limiter.acquire(1, TimeUnit.SECONDS);
+
+        limiter.release(FAST, true);
+
+        assertThat(first).isCompleted();
+        assertThat(second).isNotDone();
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+    }
+
+    @Test
+    void growsOnlyWhileSaturatedByHealthyCalls() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 1000);
+
+        limiter.acquire(1, TimeUnit.SECONDS);
+        limiter.release(FAST, true);
+        assertThat(limiter.getLimit()).isEqualTo(2);
+
+        // Each call finishing at the limit adds 1/limit: 2.5, 2.9, 3.24
+        limiter.acquire(1, TimeUnit.SECONDS);
+        limiter.acquire(1, TimeUnit.SECONDS);
+        for (int i = 0; i < 3; i++) {
+            limiter.release(FAST, true);
+            limiter.acquire(1, TimeUnit.SECONDS);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(3);
+    }
+
+    @Test
+    void cutsTheLimitOnFailureOrSlowCallsOncePerCooldown() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 10, 1000);
+        limiter.acquire(1, TimeUnit.SECONDS);
+        limiter.acquire(1, TimeUnit.SECONDS);
+
+        limiter.release(FAST, false);
+        assertThat(limiter.getLimit()).isEqualTo(7);
+
+        // Within the cooldown, a second bad call does not cut again
+        limiter.release(SLOW, true);
+        assertThat(limiter.getLimit()).isEqualTo(7);
+    }
+
+    @Test
+    void neverCutsBelowTheMinimum() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 2, 10, 1000);
+        limiter.acquire(1, TimeUnit.SECONDS);
+
+        limiter.release(FAST, false);
+
+        assertThat(limiter.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void timedOutWaiterDoesNotKeepAPermit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 1000);
+        limiter.acquire(1, TimeUnit.SECONDS);
+        CompletableFuture<Void> waiter = limiter.acquire(20, TimeUnit.MILLISECONDS);
+
+        assertThatThrownBy(() -> waiter.get(1, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(TimeoutException.class);
+
+        limiter.release(FAST, true);
+        assertThat(limiter.getInFlight()).isZero();
+        assertThat(limiter.acquire(1, TimeUnit.SECONDS)).isCompleted();
+    }
+
+    @Test
+    void unusedPermitIsHandedOn() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 1000);
+        limiter.acquire(1, TimeUnit.SECONDS);
+        CompletableFuture<Void> waiter = limiter.acquire(1, TimeUnit.SECONDS);
+
+        limiter.releaseUnused();
+
+        assertThat(waiter).isCompleted();
+        assertThat(limiter.getLimit()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,85 @@
+package com.college.attendance.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+import java.time.LocalTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AttendanceWindowTest {
+
+    @Test
+    void splitsTheWindowIntoEqualSlots() {
+        AttendanceWindow window = new AttendanceWindow(LocalTime.of(19, 35), LocalTime.of(21, 25), 5);
+
+        assertThat(window.getSlotCount()).isEqualTo(22);
+        assertThat(window.getSlotLength()).isEqualTo(Duration.ofMinutes(5));
+        assertThat(window.slotStart(0)).isEqualTo(LocalTime.of(19, 35));
+        assertThat(window.slotStart(3)).isEqualTo(LocalTime.of(19, 50));
+        assertThat(window.lastSlotStart()).isEqualTo(LocalTime.of(21, 20));
+    }
+
+    @Test
+    void stretchesSlotsToCoverAWindowThatDoesNotDivideEvenly() {
+        AttendanceWindow window = new AttendanceWindow(LocalTime.of(10, 0), LocalTime.of(10, 12), 5);
+
+        assertThat(window.getSlotCount()).isEqualTo(2);
+        assertThat(window.getSlotLength()).isEqualTo(Duration.ofMinutes(6));
+        assertThat(window.lastSlotStart()).isEqualTo(LocalTime.of(10, 6));
+    }
+
+    @Test
+    void keepsAtLeastOneSlot() {
+        AttendanceWindow shortWindow = new AttendanceWindow(LocalTime.of(10, 0), LocalTime.of(10, 3), 5);
+        assertThat(shortWindow.getSlotCount()).isEqualTo(1);
+        assertThat(shortWindow.getSlotLength()).isEqualTo(Duration.ofMinutes(3));
+
+        AttendanceWindow zeroSlotMinutes = new AttendanceWindow(LocalTime.of(10, 0), LocalTime.of(10, 3), 0);
+        assertThat(zeroSlotMinutes.getSlotCount()).isEqualTo(3);
+    }
+
+    @Test
+    void assignsSlotsBySlNoModuloTheSlotCount() {
+        AttendanceWindow window = new AttendanceWindow(LocalTime.of(19, 35), LocalTime.of(21, 25), 5);
+
+        assertThat(window.slotOf(0L)).isZero();
+        assertThat(window.slotOf(21L)).isEqualTo(21);
+        assertThat(window.slotOf(22L)).isZero();
+        assertThat(window.slotOf(45L)).isEqualTo(1);
+    }
+
+    @Test
+    void readsTheWindowFromProperties() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("app.attendance.start-time", "08:00")
+                .withProperty("app.attendance.end-time", "09:00")
+                .withProperty("app.attendance.slot-minutes", "10");
+
+        AttendanceWindow window = AttendanceWindow.from(environment);
+
+        assertThat(window.getStart()).isEqualTo(LocalTime.of(8, 0));
+        assertThat(window.getEnd()).isEqualTo(LocalTime.of(9, 0));
+        assertThat(window.getSlotCount()).isEqualTo(6);
+    }
+
+    @Test
+    void defaultsToFiveMinuteSlots() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("app.attendance.start-time", "08:00")
+                .withProperty("app.attendance.end-time", "08:30");
+
+        assertThat(AttendanceWindow.from(environment).getSlotCount()).isEqualTo(6);
+    }
+
+    @Test
+    void requiresStartAndEndTimes() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("app.attendance.start-time", "08:00");
+
+        assertThatThrownBy(() -> AttendanceWindow.from(environment))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
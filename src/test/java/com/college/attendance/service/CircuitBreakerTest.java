@@ -0,0 +1,80 @@
+package com.college.attendance.service;
+
+import com.college.attendance.service.CircuitBreaker.State;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+
+    @Test
+    void opensAfterThresholdConsecutiveFailures() {
+        CircuitBreaker breaker = new CircuitBreaker("erp", 3, 60, 600);
+
+        breaker.onFailure();
+        breaker.onFailure();
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+        assertThat(breaker.tryAcquire()).isTrue();
+
+        breaker.onFailure();
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void successResetsTheFailureCount() {
+        CircuitBreaker breaker = new CircuitBreaker("erp", 2, 60, 600);
+
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    void letsOneProbeThroughOnceTheOpenPeriodHasPassed() {
+        CircuitBreaker breaker = new CircuitBreaker("erp", 1, 0, 0);
+        breaker.onFailure();
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void successfulProbeClosesTheBreaker() {
+        CircuitBreaker breaker = new CircuitBreaker("erp", 1, 0, 0);
+        breaker.onFailure();
+        breaker.tryAcquire();
+
+        breaker.onSuccess();
+
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void failedProbeReopensTheBreaker() {
+        CircuitBreaker breaker = new CircuitBreaker("erp", 1, 0, 0);
+        breaker.onFailure();
+        breaker.tryAcquire();
+
+        breaker.onFailure();
+
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+    }
+
+    @Test
+    void unusedProbePermitCanBeTakenAgain() {
+        CircuitBreaker breaker = new CircuitBreaker("erp", 1, 0, 0);
+        breaker.onFailure();
+        assertThat(breaker.tryAcquire()).isTrue();
+
+        breaker.releaseUnused();
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+    }
+}
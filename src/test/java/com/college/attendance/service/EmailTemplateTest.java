@@ -0,0 +1,97 @@
+package com.college.attendance.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EmailTemplateTest {
+
+    @Test
+    void escapesDoubleBracePlaceholders() {
+        EmailTemplate template = EmailTemplate.compile("<p>{{body}}</p>", "body");
+
+        assertThat(template.render("<b>\"Tom\" & 'Jerry'</b>"))
+                .isEqualTo("<p>&lt;b&gt;&quot;Tom&quot; &amp; &#39;Jerry&#39;&lt;/b&gt;</p>");
+    }
+
+    @Test
+    void insertsTripleBracePlaceholdersRaw() {
+        EmailTemplate template = EmailTemplate.compile("<div>{{{markup}}}</div>", "markup");
+
+        assertThat(template.render("<br>")).isEqualTo("<div><br></div>");
+    }
+
+    @Test
+    void bindsValuesInDeclarationOrderNotSourceOrder() {
+        EmailTemplate template = EmailTemplate.compile("{{second}}-{{first}}-{{second}}", "first", "second");
+
+        assertThat(template.render("a", "b")).isEqualTo("b-a-b");
+    }
+
+    @Test
+    void writesNonAsciiAsCharacterReferences() {
+        EmailTemplate template = EmailTemplate.compile("✓ {{name}}", "name");
+
+        assertThat(template.render("José 😀")).isEqualTo("&#10003; Jos&#233; &#128512;");
+    }
+
+    @Test
+    void rendersNullAsEmptyAndIntegersAsDigits() {
+        EmailTemplate template = EmailTemplate.compile("[{{a}}][{{b}}]", "a", "b");
+
+        assertThat(template.render(null, 2026)).isEqualTo("[][2026]");
+    }
+
+    @Test
+    void rendersBoundFragmentsInPlace() {
+        EmailTemplate row = EmailTemplate.compile("<li>{{item}}</li>", "item");
+        EmailTemplate list = EmailTemplate.compile("<ul>{{{rows}}}</ul>", "rows");
+
+        EmailTemplate.Fragment rows = out -> {
+            row.renderTo(out, "a&b");
+            row.renderTo(out, "c");
+        };
+
+        assertThat(list.render(rows)).isEqualTo("<ul><li>a&amp;b</li><li>c</li></ul>");
+        assertThat(list.render(row.with("d"))).isEqualTo("<ul><li>d</li></ul>");
+    }
+
+    @Test
+    void rendersAgainWhileThisThreadsBufferIsInUse() {
+        EmailTemplate inner = EmailTemplate.compile("({{x}})", "x");
+        EmailTemplate outer = EmailTemplate.compile("[{{{nested}}}]", "nested");
+
+        EmailTemplate.Fragment nested = out -> out.append(inner.render("y"));
+
+        assertThat(outer.render(nested)).isEqualTo("[(y)]");
+        assertThat(outer.render(inner.with("z"))).isEqualTo("[(z)]");
+    }
+
+    @Test
+    void rejectsUnknownPlaceholders() {
+        assertThatThrownBy(() -> EmailTemplate.compile("{{missing}}", "present"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("missing");
+    }
+
+    @Test
+    void rejectsUnterminatedPlaceholders() {
+        assertThatThrownBy(() -> EmailTemplate.compile("Hello {{name", "name"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Unterminated");
+    }
+
+    @Test
+    void rejectsTheWrongNumberOfValues() {
+        EmailTemplate template = EmailTemplate.compile("{{a}}{{b}}", "a", "b");
+
+        assertThatThrownBy(() -> template.render("only one"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void escapeHandlesPlainText() {
+        assertThat(EmailTemplate.escape("a < b")).isEqualTo("a &lt; b");
+    }
+}